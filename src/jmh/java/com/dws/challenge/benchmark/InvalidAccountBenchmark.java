@@ -0,0 +1,104 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.FxRateService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.ReconciliationService;
+import com.dws.challenge.service.TransferService;
+import com.dws.challenge.service.VelocityLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of transfers when a share of them names nonexistent accounts, with and without the account id filter.
+ * Run with {@code -prof gc} to compare the allocation per transfer; the locks left behind are checked at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class InvalidAccountBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int TRANSFERS = 1 << 16;
+
+    /**
+     * Accounts the filter is sized for, 0 disables it.
+     */
+    @Param({"0", "10000"})
+    private long filter;
+
+    @Param({"0.0", "0.3"})
+    private double invalidShare;
+
+    private AccountLockService accountLockService;
+    private TransferService transferService;
+    private Transfer[] transfers;
+
+    @Setup
+    public void setUp() {
+        accountLockService = new AccountLockService(0);
+        LedgerService ledgerService = new LedgerService(new PostingRepositoryInMemory(), accountLockService, false, 0, 0);
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 1000, 0, new SimpleMeterRegistry());
+        AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, filter, 0.01);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000000000000")));
+        }
+
+        transferService = new TransferService(accountsService, (account, description) -> {
+        }, accountLockService, new VelocityLimitService(accountLockService, BigDecimal.ZERO, BigDecimal.ZERO, 0), new BalanceEventService(0, 1, 0, 0),
+                new FxRateService(new DefaultResourceLoader(), "", 0), ledgerService, reconciliationService, new SimpleMeterRegistry());
+
+        // mistyped or closed ids: every invalid transfer names another one
+        Random random = new Random(42);
+        transfers = new Transfer[TRANSFERS];
+        for (int i = 0; i < TRANSFERS; i++) {
+            int from = random.nextInt(ACCOUNTS);
+            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            String accountToId = random.nextDouble() < invalidShare ? UUID.randomUUID().toString() : "Id-" + to;
+            transfers[i] = new Transfer("Id-" + from, accountToId, BigDecimal.ONE);
+        }
+    }
+
+    @TearDown
+    public void checkLocks() {
+        if (accountLockService.getLockCount() != 0) {
+            throw new IllegalStateException(accountLockService.getLockCount() + " account locks were left behind");
+        }
+    }
+
+    @Benchmark
+    public boolean makeTransfer() {
+        Transfer transfer = transfers[ThreadLocalRandom.current().nextInt(TRANSFERS)];
+        try {
+            transferService.makeTransfer(transfer);
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.domain.VelocityLimit;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.FxRateService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.ReconciliationService;
+import com.dws.challenge.service.TransferService;
+import com.dws.challenge.service.VelocityLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single transfer with and without velocity limits on the source account.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VelocityLimitBenchmark {
+
+    @Param({"false", "true"})
+    private boolean limited;
+
+    private TransferService transferService;
+    private Transfer transfer;
+
+    @Setup
+    public void setUp() {
+        AccountLockService accountLockService = new AccountLockService(0);
+        LedgerService ledgerService = new LedgerService(new PostingRepositoryInMemory(), accountLockService, false, 0, 0);
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 1000, 0, new SimpleMeterRegistry());
+        AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, 0, 0.01);
+        accountsService.createAccount(new Account("Id-1", new BigDecimal("1000000000000")));
+        accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+        VelocityLimitService velocityLimitService = new VelocityLimitService(accountLockService, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+        if (limited) {
+            // high enough to never be exceeded, so every transfer pays for the full check
+            velocityLimitService.setLimit("Id-1", new VelocityLimit(new BigDecimal("1000000000000"), new BigDecimal("1000000000000")));
+        }
+
+        transferService = new TransferService(accountsService, (account, description) -> {
+        }, accountLockService, velocityLimitService, new BalanceEventService(0, 1, 0, 0),
+                new FxRateService(new DefaultResourceLoader(), "", 0), ledgerService, reconciliationService, new SimpleMeterRegistry());
+        transfer = new Transfer("Id-1", "Id-2", BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public void makeTransfer() {
+        transferService.makeTransfer(transfer);
+    }
+}
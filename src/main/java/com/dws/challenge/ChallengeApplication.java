@@ -2,8 +2,10 @@ package com.dws.challenge;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(ChallengeRuntimeHints.class)
 public class ChallengeApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,38 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountLedger;
+import com.dws.challenge.domain.BalanceChangeEvent;
+import com.dws.challenge.domain.BulkOperation;
+import com.dws.challenge.domain.BulkOperationStatus;
+import com.dws.challenge.domain.FxRates;
+import com.dws.challenge.domain.LedgerCheckpoint;
+import com.dws.challenge.domain.Posting;
+import com.dws.challenge.domain.ReconciliationResult;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferStatus;
+import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.domain.VelocityLimit;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image. Controllers return {@code ResponseEntity<Object>}, so AOT processing can't
+ * see most of the JSON types; Jackson needs their {@code @JsonCreator} constructors and the Lombok-generated accessors.
+ */
+public class ChallengeRuntimeHints implements RuntimeHintsRegistrar {
+
+	static final Class<?>[] JSON_TYPES = {
+			Account.class, AccountLedger.class, BalanceChangeEvent.class, BulkOperation.class,
+			BulkOperationStatus.class, FxRates.class, LedgerCheckpoint.class, Posting.class,
+			ReconciliationResult.class, ScheduledTransfer.class, ScheduledTransferStatus.class, Transfer.class,
+			VelocityLimit.class
+	};
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+	}
+
+}
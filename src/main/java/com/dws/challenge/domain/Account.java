@@ -3,6 +3,7 @@ package com.dws.challenge.domain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
+import java.util.Currency;
 import lombok.Data;
 
 import jakarta.validation.constraints.Min;
@@ -12,6 +13,8 @@ import jakarta.validation.constraints.NotNull;
 @Data
 public class Account {
 
+  public static final Currency DEFAULT_CURRENCY = Currency.getInstance("EUR");
+
   @NotNull
   @NotEmpty
   private final String accountId;
@@ -20,15 +23,23 @@ public class Account {
   @Min(value = 0, message = "Initial balance must be positive.")
   private BigDecimal balance;
 
+  @NotNull
+  private final Currency currency;
+
   public Account(String accountId) {
-    this.accountId = accountId;
-    this.balance = BigDecimal.ZERO;
+    this(accountId, BigDecimal.ZERO);
+  }
+
+  public Account(String accountId, BigDecimal balance) {
+    this(accountId, balance, DEFAULT_CURRENCY);
   }
 
   @JsonCreator
   public Account(@JsonProperty("accountId") String accountId,
-    @JsonProperty("balance") BigDecimal balance) {
+    @JsonProperty("balance") BigDecimal balance,
+    @JsonProperty("currency") Currency currency) {
     this.accountId = accountId;
     this.balance = balance;
+    this.currency = currency == null ? DEFAULT_CURRENCY : currency;
   }
 }
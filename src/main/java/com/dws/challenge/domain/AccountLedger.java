@@ -0,0 +1,16 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ledger of one account: the balance is the checkpoint balance plus the sum of the postings after it.
+ */
+@Data
+public class AccountLedger {
+
+    private final LedgerCheckpoint checkpoint;
+    private final List<Posting> postings;
+
+}
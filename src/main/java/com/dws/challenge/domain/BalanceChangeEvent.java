@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * New balance of an account after a committed transfer. Sequence numbers grow with every change of the account,
+ * so a consumer can tell a stale event from a fresh one.
+ */
+@Data
+public class BalanceChangeEvent {
+
+    private final String accountId;
+    private final BigDecimal balance;
+    private final long sequence;
+    private final Instant timestamp;
+
+}
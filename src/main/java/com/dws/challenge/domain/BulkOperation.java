@@ -0,0 +1,65 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Balance change applied to every account, e.g. month-end interest or fees.
+ */
+@Data
+public class BulkOperation {
+
+    @NotNull
+    private final Type type;
+
+    /**
+     * Interest as a fraction of the balance, e.g. 0.001 - only for {@link Type#INTEREST}.
+     */
+    @Positive
+    private final BigDecimal rate;
+
+    /**
+     * Fee taken from every account, in {@link #currency} - only for {@link Type#FEE}.
+     */
+    @Positive
+    private final BigDecimal amount;
+
+    /**
+     * Only accounts in this currency are changed, all accounts if null. Required for fees.
+     */
+    private final Currency currency;
+
+    @JsonCreator
+    public BulkOperation(@JsonProperty("type") Type type,
+                         @JsonProperty("rate") BigDecimal rate,
+                         @JsonProperty("amount") BigDecimal amount,
+                         @JsonProperty("currency") Currency currency) {
+        this.type = type;
+        this.rate = rate;
+        this.amount = amount;
+        this.currency = currency;
+    }
+
+    public enum Type {
+        INTEREST("interest"), FEE("fees");
+
+        private final String ledgerAccountId;
+
+        Type(String ledgerAccountId) {
+            this.ledgerAccountId = ledgerAccountId;
+        }
+
+        /**
+         * Bank's own ledger account the changes are posted against, if the ledger is enabled.
+         */
+        public String getLedgerAccountId() {
+            return ledgerAccountId;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk operation. It is applied segment by segment, an interrupted operation can be resumed
+ * from its completed segments.
+ */
+@Data
+public class BulkOperationStatus {
+
+    private final String id;
+    private final BulkOperation operation;
+    private final State state;
+    private final int segmentCount;
+    private final int completedSegments;
+    private final long processedAccounts;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final String failure;
+
+    /**
+     * @return completed fraction of the operation, from 0 to 1
+     */
+    public double getProgress() {
+        return segmentCount == 0 ? 1 : (double) completedSegments / segmentCount;
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, INTERRUPTED
+    }
+}
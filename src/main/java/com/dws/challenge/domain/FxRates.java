@@ -0,0 +1,33 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+/**
+ * Exchange rates as units of each currency per one unit of the base currency.
+ */
+@Data
+public class FxRates {
+
+    @NotNull
+    private final Currency base;
+
+    @NotNull
+    @NotEmpty
+    private final Map<Currency, @NotNull @Positive BigDecimal> rates;
+
+    @JsonCreator
+    public FxRates(@JsonProperty("base") Currency base,
+                   @JsonProperty("rates") Map<Currency, BigDecimal> rates) {
+        this.base = base;
+        this.rates = rates == null ? null : Map.copyOf(rates);
+    }
+}
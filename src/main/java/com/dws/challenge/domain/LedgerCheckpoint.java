@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Folded balance of all the postings of an account that were removed from the posting log by compaction.
+ */
+@Data
+public class LedgerCheckpoint {
+
+    public static LedgerCheckpoint empty(String accountId) {
+        return new LedgerCheckpoint(accountId, BigDecimal.ZERO, 0, null);
+    }
+
+    private final String accountId;
+    private final BigDecimal balance;
+    private final long postingCount;
+    private final Instant lastPostingTimestamp;
+
+    public LedgerCheckpoint fold(Posting posting) {
+        return new LedgerCheckpoint(accountId, balance.add(posting.getAmount()), postingCount + 1, posting.getTimestamp());
+    }
+}
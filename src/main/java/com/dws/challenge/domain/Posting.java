@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+
+/**
+ * Immutable ledger entry line: a signed change of one account's balance. Debits are negative, credits positive.
+ * All postings of one transfer share the same entry id.
+ */
+@Data
+public class Posting {
+
+    private final long entryId;
+    private final String accountId;
+    private final BigDecimal amount;
+    private final Currency currency;
+    private final Instant timestamp;
+
+}
@@ -0,0 +1,47 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of one reconciliation scan: the totals per currency expected from the recorded balance deltas and the
+ * totals actually found in the accounts.
+ */
+@Data
+public class ReconciliationResult {
+
+    private final long epoch;
+    private final Instant startedAt;
+    private final Instant completedAt;
+    private final long accountCount;
+    private final Map<Currency, BigDecimal> expectedTotals;
+    private final Map<Currency, BigDecimal> actualTotals;
+
+    /**
+     * @return actual minus expected total for every currency where they differ
+     */
+    public Map<Currency, BigDecimal> getDiscrepancies() {
+        Set<Currency> currencies = new HashSet<>(expectedTotals.keySet());
+        currencies.addAll(actualTotals.keySet());
+        Map<Currency, BigDecimal> discrepancies = new HashMap<>();
+        for (Currency currency : currencies) {
+            BigDecimal difference = actualTotals.getOrDefault(currency, BigDecimal.ZERO)
+                    .subtract(expectedTotals.getOrDefault(currency, BigDecimal.ZERO));
+            if (difference.signum() != 0) {
+                discrepancies.put(currency, difference);
+            }
+        }
+        return discrepancies;
+    }
+
+    public boolean isConsistent() {
+        return getDiscrepancies().isEmpty();
+    }
+}
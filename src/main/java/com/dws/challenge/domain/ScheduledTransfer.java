@@ -0,0 +1,39 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ScheduledTransfer {
+
+    @NotNull
+    @Valid
+    private final Transfer transfer;
+
+    @NotNull
+    private final Instant executeAt;
+
+    @NotNull
+    private final Priority priority;
+
+    @JsonCreator
+    public ScheduledTransfer(@JsonProperty("transfer") Transfer transfer,
+                             @JsonProperty("executeAt") Instant executeAt,
+                             @JsonProperty("priority") Priority priority) {
+        this.transfer = transfer;
+        this.executeAt = executeAt;
+        this.priority = priority == null ? Priority.NORMAL : priority;
+    }
+
+    /**
+     * Release lanes - due transfers of a higher priority are always released first.
+     */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+}
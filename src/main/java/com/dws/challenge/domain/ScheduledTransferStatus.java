@@ -0,0 +1,23 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * State of a scheduled transfer. Executed and failed transfers are kept for a while, so a client can find out
+ * what became of its transfer.
+ */
+@Data
+public class ScheduledTransferStatus {
+
+    private final String id;
+    private final ScheduledTransfer scheduledTransfer;
+    private final State state;
+    private final Instant finishedAt;
+    private final String failure;
+
+    public enum State {
+        PENDING, EXECUTED, FAILED
+    }
+}
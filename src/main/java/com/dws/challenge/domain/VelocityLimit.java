@@ -0,0 +1,34 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Max amount an account may send within the last hour and the last day. A null limit means no limit.
+ */
+@Data
+public class VelocityLimit {
+
+    public static final VelocityLimit NONE = new VelocityLimit(null, null);
+
+    @DecimalMin(value = "0", inclusive = false, message = "Hourly limit must be a positive number.")
+    private final BigDecimal hourlyLimit;
+
+    @DecimalMin(value = "0", inclusive = false, message = "Daily limit must be a positive number.")
+    private final BigDecimal dailyLimit;
+
+    @JsonCreator
+    public VelocityLimit(@JsonProperty("hourlyLimit") BigDecimal hourlyLimit,
+                         @JsonProperty("dailyLimit") BigDecimal dailyLimit) {
+        this.hourlyLimit = hourlyLimit;
+        this.dailyLimit = dailyLimit;
+    }
+
+    public boolean isUnlimited() {
+        return hourlyLimit == null && dailyLimit == null;
+    }
+}
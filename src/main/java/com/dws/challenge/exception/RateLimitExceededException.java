@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class RateLimitExceededException extends RuntimeException {
+
+  public RateLimitExceededException(String message) {
+    super(message);
+  }
+}
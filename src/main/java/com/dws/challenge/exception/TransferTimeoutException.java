@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class TransferTimeoutException extends RuntimeException {
+
+  public TransferTimeoutException(String message) {
+    super(message);
+  }
+}
@@ -3,11 +3,29 @@ package com.dws.challenge.repository;
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
+import java.util.Collection;
+
 public interface AccountsRepository {
 
   void createAccount(Account account) throws DuplicateAccountIdException;
 
   Account getAccount(String accountId);
 
+  /**
+   * Number of segments the accounts are partitioned into, so they can be iterated in independent parts.
+   */
+  int getSegmentCount();
+
+  /**
+   * Segment the account with the given id belongs to, whether it exists or not.
+   */
+  int getSegment(String accountId);
+
+  /**
+   * Weakly consistent view of the accounts of one segment. It never throws on concurrent changes, and contains
+   * every account that was created before the view was taken.
+   */
+  Collection<Account> getAccounts(int segment);
+
   void clearAccounts();
 }
@@ -4,17 +4,28 @@ import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
-    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private static final int SEGMENT_COUNT = 64;
+
+    private final List<Map<String, Account>> segments = new ArrayList<>(SEGMENT_COUNT);
+
+    public AccountsRepositoryInMemory() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments.add(new ConcurrentHashMap<>());
+        }
+    }
 
     @Override
     public void createAccount(Account account) throws DuplicateAccountIdException {
-        Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
+        Account previousAccount = segments.get(getSegment(account.getAccountId())).putIfAbsent(account.getAccountId(), account);
         if (previousAccount != null) {
             throw new DuplicateAccountIdException(
                     "Account id " + account.getAccountId() + " already exists!");
@@ -23,12 +34,28 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
 
     @Override
     public Account getAccount(String accountId) {
-        return accounts.get(accountId);
+        return segments.get(getSegment(accountId)).get(accountId);
     }
 
     @Override
-    public void clearAccounts() {
-        accounts.clear();
+    public int getSegmentCount() {
+        return SEGMENT_COUNT;
+    }
+
+    @Override
+    public int getSegment(String accountId) {
+        int hash = accountId.hashCode();
+        // spread the high bits, like HashMap does
+        return Math.floorMod(hash ^ (hash >>> 16), SEGMENT_COUNT);
+    }
+
+    @Override
+    public Collection<Account> getAccounts(int segment) {
+        return segments.get(segment).values();
     }
 
+    @Override
+    public void clearAccounts() {
+        segments.forEach(Map::clear);
+    }
 }
@@ -0,0 +1,28 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.LedgerCheckpoint;
+import com.dws.challenge.domain.Posting;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+public interface PostingRepository {
+
+  void appendPosting(Posting posting);
+
+  List<Posting> getPostings(String accountId);
+
+  LedgerCheckpoint getCheckpoint(String accountId);
+
+  Set<String> getAccountIds();
+
+  /**
+   * Folds the postings of the account made up to the given time into its checkpoint.
+   *
+   * @return number of folded postings
+   */
+  int compact(String accountId, Instant before);
+
+  void clearPostings();
+}
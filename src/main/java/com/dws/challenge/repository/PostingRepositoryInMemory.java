@@ -0,0 +1,68 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.LedgerCheckpoint;
+import com.dws.challenge.domain.Posting;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+@Repository
+public class PostingRepositoryInMemory implements PostingRepository {
+
+    // postings of every account in the order they were appended
+    private final Map<String, Deque<Posting>> postings = new ConcurrentHashMap<>();
+    private final Map<String, LedgerCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void appendPosting(Posting posting) {
+        postings.computeIfAbsent(posting.getAccountId(), k -> new ConcurrentLinkedDeque<>()).addLast(posting);
+    }
+
+    @Override
+    public List<Posting> getPostings(String accountId) {
+        Deque<Posting> accountPostings = postings.get(accountId);
+        return accountPostings == null ? List.of() : List.copyOf(accountPostings);
+    }
+
+    @Override
+    public LedgerCheckpoint getCheckpoint(String accountId) {
+        return checkpoints.getOrDefault(accountId, LedgerCheckpoint.empty(accountId));
+    }
+
+    @Override
+    public Set<String> getAccountIds() {
+        return postings.keySet();
+    }
+
+    @Override
+    public int compact(String accountId, Instant before) {
+        Deque<Posting> accountPostings = postings.get(accountId);
+        if (accountPostings == null) {
+            return 0;
+        }
+        LedgerCheckpoint checkpoint = getCheckpoint(accountId);
+        int folded = 0;
+        for (Posting posting = accountPostings.peekFirst();
+             posting != null && !posting.getTimestamp().isAfter(before);
+             posting = accountPostings.peekFirst()) {
+            checkpoint = checkpoint.fold(accountPostings.pollFirst());
+            folded++;
+        }
+        if (folded > 0) {
+            checkpoints.put(accountId, checkpoint);
+        }
+        return folded;
+    }
+
+    @Override
+    public void clearPostings() {
+        postings.clear();
+        checkpoints.clear();
+    }
+}
@@ -0,0 +1,194 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.exception.TransferTimeoutException;
+import com.dws.challenge.util.Deadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-account locks. The number of threads waiting for one account is bounded,
+ * a transfer that would have to wait in a longer queue is rejected right away.
+ * Waits are also bounded by the deadline of the transfer, if it has one.
+ * <p>
+ * Locks only exist while they are held or waited for - every lock counts its users and is removed with the last one,
+ * so ids that are locked once (or don't even exist) leave nothing behind.
+ */
+@Service
+public class AccountLockService {
+
+    private final int maxQueueDepth;
+
+    private final Map<String, AccountLock> accountLocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxQueueDepth max number of threads waiting for one account lock, 0 means unbounded
+     */
+    @Autowired
+    public AccountLockService(@Value("${transfers.lock-queue.max-depth:0}") int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Locks all the given accounts without risking a deadlock, waiting as long as needed.
+     *
+     * @return acquired locks, the caller has to unlock them
+     * @throws AccountBusyException if too many threads are already waiting for one of the accounts
+     */
+    public List<Lock> acquireLocks(String... accountIds) {
+        return acquireLocks(Deadline.NONE, accountIds);
+    }
+
+    /**
+     * Locks all the given accounts without risking a deadlock, waiting not longer than the deadline allows.
+     *
+     * @return acquired locks, the caller has to unlock them
+     * @throws AccountBusyException     if too many threads are already waiting for one of the accounts
+     * @throws TransferTimeoutException if the locks could not be acquired before the deadline
+     */
+    public List<Lock> acquireLocks(Deadline deadline, String... accountIds) {
+        List<AccountLock> accountLocks = new ArrayList<>(accountIds.length);
+        for (String accountId : accountIds) {
+            accountLocks.add(retain(accountId));
+        }
+        try {
+            lockAll(deadline, accountLocks);
+        } catch (RuntimeException e) {
+            accountLocks.forEach(this::release);
+            throw e;
+        }
+        return new ArrayList<>(accountLocks);
+    }
+
+    private void lockAll(Deadline deadline, List<AccountLock> accountLocks) {
+        List<ReentrantLock> locks = new ArrayList<>();
+        ReentrantLock problemLock = null;
+        // need to acquire locks for all the account ids
+        while (locks.size() != accountLocks.size()) {
+            String problemAccountId = null;
+            for (AccountLock accountLock : accountLocks) {
+                ReentrantLock lock = accountLock.lock;
+                if (lock == problemLock) {
+                    locks.add(lock);
+                    problemLock = null;
+                } else if (lock.tryLock()) {
+                    locks.add(lock);
+                } else {
+                    // other thread has acquired this lock, so we can face a deadlock -
+                    // unlock all acquired locks and wait until the problem lock is unlocked, then try again
+                    locks.forEach(Lock::unlock);
+                    locks.clear();
+                    if (problemLock != null) {
+                        problemLock.unlock();
+                    }
+                    if (maxQueueDepth > 0 && lock.getQueueLength() >= maxQueueDepth) {
+                        throw new AccountBusyException(String.format("account %s is busy, try again later", accountLock.accountId));
+                    }
+                    problemLock = lock;
+                    problemAccountId = accountLock.accountId;
+                    break;
+                }
+            }
+            if (problemLock != null && !lockBefore(problemLock, deadline)) {
+                throw new TransferTimeoutException(String.format("timed out waiting for account %s", problemAccountId));
+            }
+        }
+    }
+
+    private static boolean lockBefore(Lock lock, Deadline deadline) {
+        if (!deadline.isBounded()) {
+            lock.lock();
+            return true;
+        }
+        try {
+            return lock.tryLock(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private AccountLock retain(String accountId) {
+        return accountLocks.compute(accountId, (k, accountLock) -> {
+            AccountLock retained = accountLock == null ? new AccountLock(accountId) : accountLock;
+            retained.users++;
+            return retained;
+        });
+    }
+
+    private void release(AccountLock accountLock) {
+        accountLocks.computeIfPresent(accountLock.accountId, (k, retained) -> --retained.users == 0 ? null : retained);
+    }
+
+    /**
+     * @return estimated number of threads waiting for the account lock
+     */
+    public int getQueueLength(String accountId) {
+        AccountLock accountLock = accountLocks.get(accountId);
+        return accountLock == null ? 0 : accountLock.lock.getQueueLength();
+    }
+
+    /**
+     * @return number of accounts whose locks are held or waited for
+     */
+    public int getLockCount() {
+        return accountLocks.size();
+    }
+
+    /**
+     * Lock of one account, handed out to a single caller. Unlocking it also releases the caller's use of the lock.
+     */
+    private final class AccountLock implements Lock {
+
+        private final String accountId;
+        private final ReentrantLock lock;
+        // guarded by the map entry of the account
+        private int users;
+
+        private AccountLock(String accountId) {
+            this.accountId = accountId;
+            this.lock = new ReentrantLock();
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+            release(this);
+        }
+
+        @Override
+        public void lock() {
+            throw new UnsupportedOperationException("account locks are acquired through AccountLockService");
+        }
+
+        @Override
+        public void lockInterruptibly() {
+            throw new UnsupportedOperationException("account locks are acquired through AccountLockService");
+        }
+
+        @Override
+        public boolean tryLock() {
+            throw new UnsupportedOperationException("account locks are acquired through AccountLockService");
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            throw new UnsupportedOperationException("account locks are acquired through AccountLockService");
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("account locks are acquired through AccountLockService");
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.util.BloomFilter;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -11,17 +16,60 @@ public class AccountsService {
 
   @Getter
   private final AccountsRepository accountsRepository;
+  private final AccountLockService accountLockService;
+  private final LedgerService ledgerService;
+  private final ReconciliationService reconciliationService;
+  // every created account id, so most lookups of nonexistent ids don't reach the repository
+  private final BloomFilter accountIds;
 
+  /**
+   * @param expectedAccounts  number of accounts the account id filter is sized for, 0 disables the filter
+   * @param falsePositiveRate share of nonexistent ids the filter lets through to the repository
+   */
   @Autowired
-  public AccountsService(AccountsRepository accountsRepository) {
+  public AccountsService(AccountsRepository accountsRepository, AccountLockService accountLockService,
+    LedgerService ledgerService, ReconciliationService reconciliationService,
+    @Value("${transfers.accounts.filter.expected-accounts:0}") long expectedAccounts,
+    @Value("${transfers.accounts.filter.false-positive-rate:0.01}") double falsePositiveRate) {
     this.accountsRepository = accountsRepository;
+    this.accountLockService = accountLockService;
+    this.ledgerService = ledgerService;
+    this.reconciliationService = reconciliationService;
+    this.accountIds = expectedAccounts > 0 ? new BloomFilter(expectedAccounts, falsePositiveRate) : null;
   }
 
   public void createAccount(Account account) {
-    this.accountsRepository.createAccount(account);
+    String accountId = account.getAccountId();
+    // checked before locking, so duplicate ids don't make lock entries; the repository checks again under the lock
+    if (accountExists(accountId)) {
+      throw new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+    }
+    // added before the account, so the filter never rejects an id that the repository has
+    if (this.accountIds != null) {
+      this.accountIds.add(accountId);
+    }
+    // the account lock keeps transfers and reconciliation scans away until the opening balance is recorded
+    List<Lock> locks = this.accountLockService.acquireLocks(accountId);
+    try {
+      this.accountsRepository.createAccount(account);
+      this.ledgerService.recordOpening(account);
+      this.reconciliationService.recordOpening(account);
+    } finally {
+      locks.forEach(Lock::unlock);
+    }
   }
 
   public Account getAccount(String accountId) {
+    if (this.accountIds != null && !this.accountIds.mightContain(accountId)) {
+      return null;
+    }
     return this.accountsRepository.getAccount(accountId);
   }
+
+  /**
+   * Checks the account without locking it, the account can't be removed so the answer stays valid.
+   */
+  public boolean accountExists(String accountId) {
+    return getAccount(accountId) != null;
+  }
 }
@@ -0,0 +1,113 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.RateLimitExceededException;
+import com.dws.challenge.util.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits incoming transfers globally and per source account, so a single client can't flood the account locks.
+ * A rate of 0 disables the corresponding limit.
+ */
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    private final TokenBucket globalBucket;
+    private final TokenBucket.State globalState;
+
+    private final TokenBucket accountBucket;
+    private final Map<String, TokenBucket.State> accountStates = new ConcurrentHashMap<>();
+
+    private final long evictionIntervalMillis;
+    private ScheduledExecutorService evictor;
+
+    @Autowired
+    public AdmissionControlService(@Value("${transfers.rate-limit.global.rate:0}") double globalRate,
+                                   @Value("${transfers.rate-limit.global.burst:1}") long globalBurst,
+                                   @Value("${transfers.rate-limit.account.rate:0}") double accountRate,
+                                   @Value("${transfers.rate-limit.account.burst:1}") long accountBurst,
+                                   @Value("${transfers.rate-limit.eviction-interval-millis:60000}") long evictionIntervalMillis) {
+        this.globalBucket = globalRate > 0 ? new TokenBucket(globalRate, globalBurst) : null;
+        this.globalState = globalRate > 0 ? globalBucket.newState(System.nanoTime()) : null;
+        this.accountBucket = accountRate > 0 ? new TokenBucket(accountRate, accountBurst) : null;
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (accountBucket == null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes a token for the transfer from the given account.
+     *
+     * @throws RateLimitExceededException if the account or the whole service is over its rate limit
+     */
+    public void admit(String accountFromId) {
+        long now = System.nanoTime();
+        // the global limit goes first, so transfers rejected by it don't create state for their accounts
+        if (globalBucket != null && !globalBucket.tryAcquire(globalState, now)) {
+            throw new RateLimitExceededException("too many transfers, try again later");
+        }
+        if (accountBucket != null) {
+            TokenBucket.State state = accountStates.get(accountFromId);
+            if (state == null) {
+                state = accountStates.computeIfAbsent(accountFromId, k -> accountBucket.newState(now));
+            }
+            if (!accountBucket.tryAcquire(state, now)) {
+                // a flooding account shouldn't use up the global limit of the others
+                if (globalBucket != null) {
+                    globalBucket.release(globalState);
+                }
+                throw new RateLimitExceededException(String.format("too many transfers from account %s", accountFromId));
+            }
+        }
+    }
+
+    /**
+     * Drops the state of accounts whose bucket has refilled completely - they behave exactly like new ones.
+     *
+     * @return number of evicted accounts
+     */
+    public int evictIdle() {
+        if (accountBucket == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        int sizeBefore = accountStates.size();
+        accountStates.values().removeIf(state -> accountBucket.isIdle(state, now));
+        int evicted = sizeBefore - accountStates.size();
+        log.debug("Evicted {} idle rate limiter entries", evicted);
+        return evicted;
+    }
+
+    public int getTrackedAccountCount() {
+        return accountStates.size();
+    }
+}
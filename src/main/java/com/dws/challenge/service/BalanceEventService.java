@@ -0,0 +1,298 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceChangeEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans out balance changes to Server-Sent Events subscribers.
+ * <p>
+ * Events are created under the account locks (to get ordered sequence numbers) but only when the account has
+ * subscribers, and are delivered after the locks are released. Every subscriber keeps just the latest pending
+ * event per account, so a slow consumer gets coalesced updates instead of an ever-growing backlog.
+ * <p>
+ * Subscribers also get a periodic heartbeat, so connections that died on quiet accounts are noticed and dropped.
+ * A subscriber that doesn't read its events blocks the write in progress; once the write takes longer than the send
+ * timeout, the subscriber is dropped and gets no more events.
+ */
+@Service
+@Slf4j
+public class BalanceEventService {
+
+    private final long emitterTimeoutMillis;
+    private final long heartbeatMillis;
+    private final long sendTimeoutNanos;
+    private final ExecutorService dispatcher;
+    private ScheduledExecutorService heartbeat;
+
+    private final Map<String, Set<Subscriber>> subscribersByAccount = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param heartbeatMillis   how often subscribers get a heartbeat and are checked for stuck writes, 0 means never
+     * @param sendTimeoutMillis how long a write to a subscriber may take before it's dropped, 0 means forever
+     */
+    @Autowired
+    public BalanceEventService(@Value("${transfers.events.emitter-timeout-millis:0}") long emitterTimeoutMillis,
+                               @Value("${transfers.events.dispatcher-threads:4}") int dispatcherThreads,
+                               @Value("${transfers.events.heartbeat-millis:15000}") long heartbeatMillis,
+                               @Value("${transfers.events.send-timeout-millis:10000}") long sendTimeoutMillis) {
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.sendTimeoutNanos = sendTimeoutMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis) : Long.MAX_VALUE;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, r -> {
+            Thread thread = new Thread(r, "balance-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (heartbeatMillis <= 0) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "balance-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Subscribes to balance changes of the given accounts. The current balances are sent first.
+     */
+    public SseEmitter subscribe(Collection<Account> accounts) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, accounts.stream().map(Account::getAccountId).toList());
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        for (Account account : accounts) {
+            // added inside compute, so a concurrent unsubscribe can't drop the set it is added to
+            subscribersByAccount.compute(account.getAccountId(), (k, accountSubscribers) -> {
+                if (subscriber.closed) {
+                    return accountSubscribers;
+                }
+                Set<Subscriber> updated = accountSubscribers == null ? new CopyOnWriteArraySet<>() : accountSubscribers;
+                updated.add(subscriber);
+                return updated;
+            });
+            // the snapshot is read without the account lock, so any real change has to win over it
+            subscriber.offer(new BalanceChangeEvent(account.getAccountId(), account.getBalance(), 0, Instant.now()));
+        }
+        return emitter;
+    }
+
+    /**
+     * Creates an event for the current balance of the account. Has to be called while holding the account lock.
+     *
+     * @return the event or null if nobody is subscribed to the account
+     */
+    public BalanceChangeEvent createEvent(Account account) {
+        if (!subscribersByAccount.containsKey(account.getAccountId())) {
+            return null;
+        }
+        return new BalanceChangeEvent(account.getAccountId(), account.getBalance(), sequence.incrementAndGet(), Instant.now());
+    }
+
+    /**
+     * Delivers the event to the subscribers of its account, does nothing for a null event.
+     * Should be called after the account lock is released.
+     */
+    public void publish(BalanceChangeEvent event) {
+        if (event == null) {
+            return;
+        }
+        Set<Subscriber> accountSubscribers = subscribersByAccount.get(event.getAccountId());
+        if (accountSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : accountSubscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int getSubscriberCount(String accountId) {
+        Set<Subscriber> accountSubscribers = subscribersByAccount.get(accountId);
+        return accountSubscribers == null ? 0 : accountSubscribers.size();
+    }
+
+    /**
+     * Drops the subscribers stuck in a write and sends a heartbeat to the others.
+     */
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isStuck(now)) {
+                // the emitter is locked by the stuck write, it is completed by the draining thread once the write returns
+                log.debug("Dropping balance event subscriber stuck in a write");
+                subscriber.stuck = true;
+                unsubscribe(subscriber);
+                // completes the emitter if the write has returned meanwhile
+                subscriber.scheduleDrain();
+            } else {
+                subscriber.offerHeartbeat();
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        for (String accountId : subscriber.accountIds) {
+            subscribersByAccount.computeIfPresent(accountId, (k, accountSubscribers) -> {
+                accountSubscribers.remove(subscriber);
+                return accountSubscribers.isEmpty() ? null : accountSubscribers;
+            });
+        }
+        subscriber.pending.clear();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final List<String> accountIds;
+        // latest undelivered event per account
+        private final Map<String, BalanceChangeEvent> pending = new ConcurrentHashMap<>();
+        // sequence of the last delivered event per account, only accessed by the draining thread
+        private final Map<String, Long> delivered = new HashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        // nanoTime when the write in progress started, 0 if there is none
+        private volatile long writeStartedAt;
+        private volatile boolean stuck;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, List<String> accountIds) {
+            this.emitter = emitter;
+            this.accountIds = accountIds;
+        }
+
+        void offer(BalanceChangeEvent event) {
+            if (closed) {
+                return;
+            }
+            pending.merge(event.getAccountId(), event, (old, current) -> current.getSequence() > old.getSequence() ? current : old);
+            scheduleDrain();
+        }
+
+        void offerHeartbeat() {
+            if (closed) {
+                return;
+            }
+            heartbeatPending.set(true);
+            scheduleDrain();
+        }
+
+        boolean isStuck(long now) {
+            long startedAt = writeStartedAt;
+            return startedAt != 0 && now - startedAt > sendTimeoutNanos;
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        /**
+         * Sends what is pending right now. Events offered meanwhile are sent by another task,
+         * so a busy subscriber doesn't keep a dispatcher thread from the others.
+         */
+        private void drain() {
+            try {
+                if (closed) {
+                    completeIfStuck();
+                    return;
+                }
+                for (Iterator<String> accountIds = pending.keySet().iterator(); accountIds.hasNext(); ) {
+                    BalanceChangeEvent event = pending.remove(accountIds.next());
+                    if (event != null) {
+                        send(event);
+                    }
+                }
+                if (heartbeatPending.getAndSet(false)) {
+                    write(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Balance event subscriber is gone: {}", e.getMessage());
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                completeIfStuck();
+            } else if (!pending.isEmpty() || heartbeatPending.get()) {
+                scheduleDrain();
+            }
+        }
+
+        private void completeIfStuck() {
+            if (stuck) {
+                emitter.completeWithError(new IOException("balance event subscriber doesn't read its events"));
+            }
+        }
+
+        private void send(BalanceChangeEvent event) throws IOException {
+            Long lastSequence = delivered.get(event.getAccountId());
+            if (lastSequence != null && lastSequence >= event.getSequence()) {
+                return;
+            }
+            delivered.put(event.getAccountId(), event.getSequence());
+            write(SseEmitter.event()
+                    .name("balance")
+                    .id(String.valueOf(event.getSequence()))
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        private void write(SseEmitter.SseEventBuilder event) throws IOException {
+            writeStartedAt = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                writeStartedAt = 0;
+            }
+        }
+    }
+}
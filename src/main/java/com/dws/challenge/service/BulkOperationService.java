@@ -0,0 +1,318 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceChangeEvent;
+import com.dws.challenge.domain.BulkOperation;
+import com.dws.challenge.domain.BulkOperationStatus;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.repository.AccountsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies {@link BulkOperation}s to all the accounts, with fork-join parallelism over the segments of the
+ * {@link AccountsRepository}.
+ * <p>
+ * Every account is changed under its own lock, held just for that account, so transfers keep flowing while an
+ * operation runs. The completed segments, plus the accounts already processed in unfinished ones, are the checkpoint
+ * of an operation: a cancelled or failed operation can be resumed and never changes an account twice.
+ * Accounts are changed if they exist when their segment is processed.
+ */
+@Service
+@Slf4j
+public class BulkOperationService {
+
+    private final AccountsRepository accountsRepository;
+    private final AccountLockService accountLockService;
+    private final LedgerService ledgerService;
+    private final ReconciliationService reconciliationService;
+    private final BalanceEventService balanceEventService;
+    private final ForkJoinPool pool;
+
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+    /**
+     * @param parallelism number of threads applying operations, 0 for the number of processors
+     */
+    @Autowired
+    public BulkOperationService(AccountsRepository accountsRepository, AccountLockService accountLockService,
+                                LedgerService ledgerService, ReconciliationService reconciliationService,
+                                BalanceEventService balanceEventService,
+                                @Value("${transfers.bulk.parallelism:0}") int parallelism) {
+        this.accountsRepository = accountsRepository;
+        this.accountLockService = accountLockService;
+        this.ledgerService = ledgerService;
+        this.reconciliationService = reconciliationService;
+        this.balanceEventService = balanceEventService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("bulk-operations-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Starts applying the operation in the background.
+     *
+     * @throws IllegalArgumentException if the operation lacks the rate or the fee it needs
+     */
+    public BulkOperationStatus start(BulkOperation operation) {
+        validate(operation);
+        Run run = new Run(UUID.randomUUID().toString(), operation, accountsRepository.getSegmentCount());
+        runs.put(run.id, run);
+        log.info("Starting bulk operation {}: {}", run.id, operation);
+        pool.execute(new OperationTask(run));
+        return run.getStatus();
+    }
+
+    /**
+     * @return status of the operation or null if there is no such operation
+     */
+    public BulkOperationStatus getStatus(String id) {
+        Run run = runs.get(id);
+        return run == null ? null : run.getStatus();
+    }
+
+    /**
+     * Stops the operation after the accounts that are being changed right now. It can be resumed later.
+     *
+     * @return status of the operation or null if there is no such operation
+     */
+    public BulkOperationStatus cancel(String id) {
+        Run run = runs.get(id);
+        if (run == null) {
+            return null;
+        }
+        run.cancelled = true;
+        return run.getStatus();
+    }
+
+    /**
+     * Continues an interrupted operation from its checkpoint.
+     *
+     * @return status of the operation or null if there is no such operation
+     * @throws IllegalStateException if the operation is not interrupted
+     */
+    public BulkOperationStatus resume(String id) {
+        Run run = runs.get(id);
+        if (run == null) {
+            return null;
+        }
+        if (!run.state.compareAndSet(BulkOperationStatus.State.INTERRUPTED, BulkOperationStatus.State.RUNNING)) {
+            throw new IllegalStateException(String.format("bulk operation %s is %s", id, run.state.get()));
+        }
+        run.cancelled = false;
+        run.failure = null;
+        run.finishedAt = null;
+        log.info("Resuming bulk operation {} at {}/{} segments", id, run.getCompletedSegments(), run.segmentCount);
+        pool.execute(new OperationTask(run));
+        return run.getStatus();
+    }
+
+    private static void validate(BulkOperation operation) {
+        switch (operation.getType()) {
+            case INTEREST -> {
+                if (operation.getRate() == null || operation.getRate().signum() <= 0) {
+                    throw new IllegalArgumentException("interest rate should be positive");
+                }
+            }
+            case FEE -> {
+                if (operation.getAmount() == null || operation.getAmount().signum() <= 0) {
+                    throw new IllegalArgumentException("fee amount should be positive");
+                }
+                if (operation.getCurrency() == null) {
+                    throw new IllegalArgumentException("fee currency is required");
+                }
+            }
+        }
+    }
+
+    private void applySegment(Run run, int segment) {
+        if (run.isCompleted(segment)) {
+            return;
+        }
+        Set<String> processed = run.processed.computeIfAbsent(segment, k -> ConcurrentHashMap.newKeySet());
+        Currency currency = run.operation.getCurrency();
+        for (Account account : accountsRepository.getAccounts(segment)) {
+            if (run.cancelled) {
+                return;
+            }
+            if (currency == null || currency.equals(account.getCurrency())) {
+                apply(run, account, processed);
+            }
+        }
+        run.complete(segment);
+    }
+
+    private void apply(Run run, Account account, Set<String> processed) {
+        List<Lock> locks = lockAccount(run, account.getAccountId());
+        if (locks == null) {
+            return;
+        }
+        BalanceChangeEvent event = null;
+        try {
+            // marked under the lock, so a resumed operation can't change the account again
+            if (!processed.add(account.getAccountId())) {
+                return;
+            }
+            BigDecimal amount = amount(run.operation, account);
+            if (amount.signum() != 0) {
+                account.setBalance(account.getBalance().add(amount));
+                ledgerService.recordAdjustment(account, amount, run.operation.getType().getLedgerAccountId());
+                reconciliationService.recordAdjustment(account, amount);
+                event = balanceEventService.createEvent(account);
+            }
+            run.processedAccounts.incrementAndGet();
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+        balanceEventService.publish(event);
+    }
+
+    /**
+     * @return locks of the account or null if the operation was cancelled while waiting for them
+     */
+    private List<Lock> lockAccount(Run run, String accountId) {
+        while (!run.cancelled) {
+            try {
+                return accountLockService.acquireLocks(accountId);
+            } catch (AccountBusyException e) {
+                // give way to the transfers waiting for the account
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal amount(BulkOperation operation, Account account) {
+        int scale = Math.max(account.getCurrency().getDefaultFractionDigits(), 0);
+        return switch (operation.getType()) {
+            case INTEREST -> account.getBalance().multiply(operation.getRate()).setScale(scale, RoundingMode.HALF_EVEN);
+            // never takes the balance below zero
+            case FEE -> operation.getAmount().min(account.getBalance()).negate();
+        };
+    }
+
+    private final class OperationTask extends RecursiveAction {
+
+        private final Run run;
+
+        private OperationTask(Run run) {
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                new SegmentsTask(run, 0, run.segmentCount).invoke();
+            } catch (RuntimeException e) {
+                log.error("Bulk operation {} failed", run.id, e);
+                run.failure = e.getMessage();
+            }
+            run.finishedAt = Instant.now();
+            run.state.set(run.getCompletedSegments() == run.segmentCount ? BulkOperationStatus.State.COMPLETED : BulkOperationStatus.State.INTERRUPTED);
+            log.info("Bulk operation {} is {}: {}/{} segments, {} accounts", run.id, run.state.get(),
+                    run.getCompletedSegments(), run.segmentCount, run.processedAccounts.get());
+        }
+    }
+
+    private final class SegmentsTask extends RecursiveAction {
+
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        private SegmentsTask(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (run.cancelled) {
+                return;
+            }
+            if (to - from == 1) {
+                applySegment(run, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SegmentsTask(run, from, middle), new SegmentsTask(run, middle, to));
+        }
+    }
+
+    private static final class Run {
+
+        private final String id;
+        private final BulkOperation operation;
+        private final int segmentCount;
+        private final Instant startedAt = Instant.now();
+        private final AtomicReference<BulkOperationStatus.State> state = new AtomicReference<>(BulkOperationStatus.State.RUNNING);
+        private final AtomicLong processedAccounts = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+        private volatile String failure;
+
+        // checkpoint: completed segments, and the accounts processed in the unfinished ones
+        private final BitSet completedSegments = new BitSet();
+        private final Map<Integer, Set<String>> processed = new ConcurrentHashMap<>();
+
+        private Run(String id, BulkOperation operation, int segmentCount) {
+            this.id = id;
+            this.operation = operation;
+            this.segmentCount = segmentCount;
+        }
+
+        boolean isCompleted(int segment) {
+            synchronized (completedSegments) {
+                return completedSegments.get(segment);
+            }
+        }
+
+        void complete(int segment) {
+            synchronized (completedSegments) {
+                completedSegments.set(segment);
+            }
+            processed.remove(segment);
+        }
+
+        int getCompletedSegments() {
+            synchronized (completedSegments) {
+                return completedSegments.cardinality();
+            }
+        }
+
+        BulkOperationStatus getStatus() {
+            return new BulkOperationStatus(id, operation, state.get(), segmentCount, getCompletedSegments(),
+                    processedAccounts.get(), startedAt, finishedAt, failure);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.FxRates;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory FX rate table used to convert cross-currency transfers.
+ * <p>
+ * The table is immutable and replaced as a whole, readers never lock. Cross rates are computed with 34 significant
+ * digits and cached per currency pair for the lifetime of the table. Converted amounts are rounded half-even to the
+ * minor units of the target currency.
+ * <p>
+ * Rates can be loaded from a properties file or URL ({@code base=EUR}, {@code USD=1.0845}, ...), which is re-read
+ * periodically, or replaced through {@link #updateRates(FxRates)}.
+ */
+@Service
+@Slf4j
+public class FxRateService {
+
+    private static final MathContext RATE_PRECISION = MathContext.DECIMAL128;
+    private static final String BASE_KEY = "base";
+
+    private final ResourceLoader resourceLoader;
+    private final String ratesLocation;
+    private final long refreshMillis;
+
+    private volatile RateTable table;
+    private ScheduledExecutorService refresher;
+
+    /**
+     * @param ratesLocation Spring resource location of the rates, empty if rates are only set via {@link #updateRates}
+     * @param refreshMillis how often the rates are re-read from the location, 0 to read them only on start
+     */
+    @Autowired
+    public FxRateService(ResourceLoader resourceLoader,
+                         @Value("${transfers.fx.rates-location:}") String ratesLocation,
+                         @Value("${transfers.fx.refresh-millis:0}") long refreshMillis) {
+        this.resourceLoader = resourceLoader;
+        this.ratesLocation = ratesLocation;
+        this.refreshMillis = refreshMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (ratesLocation.isEmpty()) {
+            return;
+        }
+        reload();
+        if (refreshMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "fx-rates-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::reload, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return current rates or null if none are loaded
+     */
+    public FxRates getRates() {
+        RateTable current = table;
+        return current == null ? null : current.rates;
+    }
+
+    public void updateRates(FxRates rates) {
+        for (BigDecimal rate : rates.getRates().values()) {
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("FX rates should be positive");
+            }
+        }
+        RateTable current = table;
+        if (current != null && current.rates.equals(rates)) {
+            // keep the cached cross rates
+            return;
+        }
+        table = new RateTable(rates);
+        log.info("FX rates updated: {}", rates);
+    }
+
+    /**
+     * Re-reads the rates from the configured location. Keeps the current rates if they can't be read.
+     */
+    public void reload() {
+        try {
+            updateRates(readRates(resourceLoader.getResource(ratesLocation)));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load FX rates from {}", ratesLocation, e);
+        }
+    }
+
+    /**
+     * Converts the amount to the target currency. The same amount is returned if both currencies are the same.
+     *
+     * @throws IllegalArgumentException if there is no rate for one of the currencies, the amount has more decimals
+     *                                  than the source currency or the converted amount rounds to zero
+     */
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        int fromDigits = from.getDefaultFractionDigits();
+        if (fromDigits >= 0 && amount.stripTrailingZeros().scale() > fromDigits) {
+            throw new IllegalArgumentException(String.format("amount %s has more decimals than %s allows", amount, from));
+        }
+        RateTable current = table;
+        if (current == null) {
+            throw new IllegalArgumentException(String.format("no FX rate for %s/%s", from, to));
+        }
+        BigDecimal converted = amount.multiply(current.crossRate(from, to))
+                .setScale(Math.max(to.getDefaultFractionDigits(), 0), RoundingMode.HALF_EVEN);
+        // the sender would pay for nothing
+        if (converted.signum() == 0 && amount.signum() != 0) {
+            throw new IllegalArgumentException(String.format("amount %s %s is too small to convert to %s", amount, from, to));
+        }
+        return converted;
+    }
+
+    private static FxRates readRates(Resource resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = resource.getInputStream()) {
+            properties.load(inputStream);
+        }
+        String base = properties.getProperty(BASE_KEY);
+        if (base == null) {
+            throw new IllegalArgumentException("FX rates should have a base currency");
+        }
+        Map<Currency, BigDecimal> rates = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.equals(BASE_KEY)) {
+                rates.put(Currency.getInstance(key.trim()), new BigDecimal(properties.getProperty(key).trim()));
+            }
+        }
+        return new FxRates(Currency.getInstance(base.trim()), rates);
+    }
+
+    private static final class RateTable {
+
+        private final FxRates rates;
+        private final Map<Currency, Map<Currency, BigDecimal>> crossRates = new ConcurrentHashMap<>();
+
+        private RateTable(FxRates rates) {
+            this.rates = rates;
+        }
+
+        BigDecimal crossRate(Currency from, Currency to) {
+            Map<Currency, BigDecimal> fromRates = crossRates.get(from);
+            BigDecimal crossRate = fromRates == null ? null : fromRates.get(to);
+            if (crossRate == null) {
+                crossRate = rate(to, from, to).divide(rate(from, from, to), RATE_PRECISION);
+                crossRates.computeIfAbsent(from, k -> new ConcurrentHashMap<>()).put(to, crossRate);
+            }
+            return crossRate;
+        }
+
+        private BigDecimal rate(Currency currency, Currency from, Currency to) {
+            if (currency.equals(rates.getBase())) {
+                return BigDecimal.ONE;
+            }
+            BigDecimal rate = rates.getRates().get(currency);
+            if (rate == null) {
+                throw new IllegalArgumentException(String.format("no FX rate for %s/%s", from, to));
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountLedger;
+import com.dws.challenge.domain.Posting;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.repository.PostingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Double-entry ledger mode. Every balance change is also written as an immutable {@link Posting} to an append-only
+ * log, while account balances stay the materialized view that is updated with the same deltas - so they never have to
+ * be recomputed from the postings. Old postings are periodically folded into per-account checkpoints.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    private final PostingRepository postingRepository;
+    private final AccountLockService accountLockService;
+    private final boolean enabled;
+    private final Duration retention;
+    private final long compactionIntervalMillis;
+
+    private final AtomicLong entryIds = new AtomicLong();
+    private ScheduledExecutorService compactor;
+
+    @Autowired
+    public LedgerService(PostingRepository postingRepository, AccountLockService accountLockService,
+                         @Value("${transfers.ledger.enabled:false}") boolean enabled,
+                         @Value("${transfers.ledger.retention-millis:86400000}") long retentionMillis,
+                         @Value("${transfers.ledger.compaction-interval-millis:0}") long compactionIntervalMillis) {
+        this.postingRepository = postingRepository;
+        this.accountLockService = accountLockService;
+        this.enabled = enabled;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.compactionIntervalMillis = compactionIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || compactionIntervalMillis <= 0) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Posts the initial balance of a new account.
+     */
+    public void recordOpening(Account account) {
+        if (!enabled) {
+            return;
+        }
+        postingRepository.appendPosting(new Posting(entryIds.incrementAndGet(), account.getAccountId(),
+                account.getBalance(), account.getCurrency(), Instant.now()));
+    }
+
+    /**
+     * Posts a transfer that has just been applied to the balances. Has to be called while holding both account locks.
+     *
+     * @param debitAmount  amount taken from accountFrom, in its currency
+     * @param creditAmount amount added to accountTo, in its currency
+     */
+    public void recordTransfer(Account accountFrom, BigDecimal debitAmount, Account accountTo, BigDecimal creditAmount) {
+        if (!enabled) {
+            return;
+        }
+        long entryId = entryIds.incrementAndGet();
+        Instant now = Instant.now();
+        postingRepository.appendPosting(new Posting(entryId, accountFrom.getAccountId(), debitAmount.negate(), accountFrom.getCurrency(), now));
+        postingRepository.appendPosting(new Posting(entryId, accountTo.getAccountId(), creditAmount, accountTo.getCurrency(), now));
+    }
+
+    /**
+     * Posts money added to (or taken from, if negative) an account, e.g. interest or fees, against one of the bank's
+     * own ledger accounts. The counter posting goes to a ledger account per currency, e.g. {@code interest:EUR}.
+     * Has to be called while holding the account lock.
+     */
+    public void recordAdjustment(Account account, BigDecimal amount, String counterAccountId) {
+        if (!enabled) {
+            return;
+        }
+        long entryId = entryIds.incrementAndGet();
+        Instant now = Instant.now();
+        postingRepository.appendPosting(new Posting(entryId, account.getAccountId(), amount, account.getCurrency(), now));
+        postingRepository.appendPosting(new Posting(entryId, counterAccountId + ":" + account.getCurrency().getCurrencyCode(),
+                amount.negate(), account.getCurrency(), now));
+    }
+
+    /**
+     * @throws AccountBusyException if too many threads are already waiting for the account
+     */
+    public AccountLedger getLedger(String accountId) {
+        // the account lock keeps compaction from moving postings into the checkpoint while they are read
+        List<Lock> locks = accountLockService.acquireLocks(accountId);
+        try {
+            return new AccountLedger(postingRepository.getCheckpoint(accountId), postingRepository.getPostings(accountId));
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Folds postings older than the retention period into checkpoints, one account at a time.
+     * Busy accounts are skipped and folded on the next pass.
+     *
+     * @return number of folded postings
+     */
+    public int compact() {
+        Instant before = Instant.now().minus(retention);
+        int folded = 0;
+        int skipped = 0;
+        for (String accountId : postingRepository.getAccountIds()) {
+            try {
+                folded += compact(accountId, before);
+            } catch (AccountBusyException e) {
+                skipped++;
+            } catch (RuntimeException e) {
+                skipped++;
+                log.error("Ledger compaction failed for account {}", accountId, e);
+            }
+        }
+        log.info("Folded {} postings into checkpoints, skipped {} accounts", folded, skipped);
+        return folded;
+    }
+
+    private int compact(String accountId, Instant before) {
+        List<Lock> locks = accountLockService.acquireLocks(accountId);
+        try {
+            return postingRepository.compact(accountId, before);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+}
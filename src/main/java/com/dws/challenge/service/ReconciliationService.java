@@ -0,0 +1,428 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReconciliationResult;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.repository.AccountsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background check that transfers conserve money.
+ * <p>
+ * Expected totals per currency are kept from the balance deltas that change them - account openings and
+ * cross-currency transfers, same-currency transfers net to zero. A low-priority thread periodically sums up the
+ * balances, segment by segment and in chunks, and compares them with the expected totals. Discrepancies are
+ * reported through the {@code transfers.reconciliation.*} metrics.
+ * <p>
+ * Transfers are not paused during a scan. Every account is counted under its own lock, and the segment the scan is
+ * in works as a watermark: accounts of earlier segments are counted, accounts of later ones are not. A transfer that
+ * touches an already counted account is left out of the snapshot - its effect on an account that is still to be
+ * counted is corrected away, and its deltas are left out of the expected totals. Deltas are recorded in striped
+ * accumulators, which are only locked all together once per scan to merge them.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private final AccountsRepository accountsRepository;
+    private final AccountLockService accountLockService;
+    private final long intervalMillis;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+    private final MeterRegistry meterRegistry;
+
+    private final Stripe[] stripes;
+    private volatile Scan activeScan;
+    private volatile ReconciliationResult lastResult;
+
+    // guarded by scanLock
+    private long lastEpoch;
+    private final Lock scanLock = new ReentrantLock();
+
+    private final Map<Currency, AtomicReference<BigDecimal>> discrepancies = new ConcurrentHashMap<>();
+    private final Counter scans;
+    private final Counter failedScans;
+    private final Timer scanDuration;
+    private ScheduledExecutorService scanner;
+
+    /**
+     * @param intervalMillis   delay between scans, 0 to only scan on {@link #reconcile()} calls
+     * @param chunkSize        number of accounts counted between pauses
+     * @param chunkPauseMillis pause after every chunk, to leave the CPU and the locks to transfers
+     */
+    @Autowired
+    public ReconciliationService(AccountsRepository accountsRepository, AccountLockService accountLockService,
+                                 @Value("${transfers.reconciliation.interval-millis:0}") long intervalMillis,
+                                 @Value("${transfers.reconciliation.chunk-size:1000}") int chunkSize,
+                                 @Value("${transfers.reconciliation.chunk-pause-millis:0}") long chunkPauseMillis,
+                                 MeterRegistry meterRegistry) {
+        this.accountsRepository = accountsRepository;
+        this.accountLockService = accountLockService;
+        this.intervalMillis = intervalMillis;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+        this.meterRegistry = meterRegistry;
+
+        // a power of two, so a stripe is picked with a mask
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.scans = Counter.builder("transfers.reconciliation.scans")
+                .description("Completed reconciliation scans")
+                .register(meterRegistry);
+        this.failedScans = Counter.builder("transfers.reconciliation.failures")
+                .description("Reconciliation scans that found balances not matching the expected totals")
+                .register(meterRegistry);
+        this.scanDuration = Timer.builder("transfers.reconciliation.duration")
+                .description("Duration of reconciliation scans")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (intervalMillis <= 0) {
+            return;
+        }
+        scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reconciliation");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scanner.scheduleWithFixedDelay(this::runScan, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scanner != null) {
+            scanner.shutdownNow();
+        }
+    }
+
+    /**
+     * Records the initial balance of a new account. Has to be called while holding the account lock,
+     * before the account is used by transfers.
+     */
+    public void recordOpening(Account account) {
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.add(account.getCurrency(), account.getBalance());
+            Scan scan = activeScan;
+            // the scan may have passed the account already, then it is left out altogether
+            if (scan != null && scan.markCounted(account.getAccountId())) {
+                stripe.exclude(account.getCurrency(), account.getBalance(), false);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Records money added to (or taken from, if negative) a single account, e.g. interest or fees.
+     * Has to be called while holding the account lock.
+     */
+    public void recordAdjustment(Account account, BigDecimal amount) {
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.add(account.getCurrency(), amount);
+            Scan scan = activeScan;
+            if (scan != null && scan.isCounted(account.getAccountId())) {
+                stripe.exclude(account.getCurrency(), amount, false);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Records a transfer that has just been applied to the balances. Has to be called while holding both account locks.
+     *
+     * @param debitAmount  amount taken from accountFrom, in its currency
+     * @param creditAmount amount added to accountTo, in its currency
+     */
+    public void recordTransfer(Account accountFrom, BigDecimal debitAmount, Account accountTo, BigDecimal creditAmount) {
+        if (activeScan == null && accountFrom.getCurrency().equals(accountTo.getCurrency())) {
+            // nets to zero and there is no snapshot to correct
+            return;
+        }
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.add(accountFrom.getCurrency(), debitAmount.negate());
+            stripe.add(accountTo.getCurrency(), creditAmount);
+
+            Scan scan = activeScan;
+            if (scan == null) {
+                return;
+            }
+            boolean fromCounted = scan.isCounted(accountFrom.getAccountId());
+            boolean toCounted = scan.isCounted(accountTo.getAccountId());
+            if (fromCounted || toCounted) {
+                stripe.exclude(accountFrom.getCurrency(), debitAmount.negate(), !fromCounted);
+                stripe.exclude(accountTo.getCurrency(), creditAmount, !toCounted);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Scans all the accounts and compares their balances with the expected totals. Only one scan runs at a time.
+     */
+    public ReconciliationResult reconcile() throws InterruptedException {
+        scanLock.lock();
+        try {
+            long startNanos = System.nanoTime();
+            Scan scan = new Scan(++lastEpoch);
+            activeScan = scan;
+
+            ReconciliationResult result;
+            try {
+                int chunkCount = 0;
+                for (int segment = 0; segment < accountsRepository.getSegmentCount(); segment++) {
+                    // move the watermark before the segment is read, accounts created in it from now on are left out
+                    SegmentProgress progress = new SegmentProgress(segment);
+                    scan.progress = progress;
+                    for (Account account : accountsRepository.getAccounts(segment)) {
+                        count(scan, progress, account);
+                        if (++chunkCount == chunkSize) {
+                            chunkCount = 0;
+                            pause();
+                        }
+                    }
+                }
+                scan.progress = new SegmentProgress(accountsRepository.getSegmentCount());
+            } finally {
+                result = complete(scan);
+            }
+
+            scanDuration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            report(result);
+            return result;
+        } finally {
+            scanLock.unlock();
+        }
+    }
+
+    /**
+     * @return result of the last completed scan or null if there was none
+     */
+    public ReconciliationResult getLastResult() {
+        return lastResult;
+    }
+
+    private void runScan() {
+        try {
+            reconcile();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Reconciliation scan failed", e);
+        }
+    }
+
+    private void count(Scan scan, SegmentProgress progress, Account account) throws InterruptedException {
+        List<Lock> locks = lockAccount(account.getAccountId());
+        try {
+            if (progress.counted.add(account.getAccountId())) {
+                scan.count(account.getCurrency(), account.getBalance());
+            }
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    private List<Lock> lockAccount(String accountId) throws InterruptedException {
+        while (true) {
+            try {
+                return accountLockService.acquireLocks(accountId);
+            } catch (AccountBusyException e) {
+                // give way to the transfers waiting for the account
+                Thread.sleep(Math.max(chunkPauseMillis, 1));
+            }
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (chunkPauseMillis > 0) {
+            Thread.sleep(chunkPauseMillis);
+        } else if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Ends the scan and merges the stripes. All of them are locked, so every recorded transfer is either
+     * fully in or fully out.
+     */
+    private ReconciliationResult complete(Scan scan) {
+        Map<Currency, BigDecimal> expected = new HashMap<>();
+        Map<Currency, BigDecimal> actual = new HashMap<>(scan.counted);
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            activeScan = null;
+            for (Stripe stripe : stripes) {
+                stripe.totals.forEach((currency, amount) -> add(expected, currency, amount));
+                stripe.excluded.forEach((currency, amount) -> add(expected, currency, amount.negate()));
+                stripe.corrections.forEach((currency, amount) -> add(actual, currency, amount));
+                stripe.excluded.clear();
+                stripe.corrections.clear();
+            }
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.lock.unlock();
+            }
+        }
+        return new ReconciliationResult(scan.epoch, scan.startedAt, Instant.now(), scan.accountCount, expected, actual);
+    }
+
+    private void report(ReconciliationResult result) {
+        lastResult = result;
+        scans.increment();
+
+        Map<Currency, BigDecimal> resultDiscrepancies = result.getDiscrepancies();
+        Set<Currency> currencies = new HashSet<>(result.getExpectedTotals().keySet());
+        currencies.addAll(result.getActualTotals().keySet());
+        for (Currency currency : currencies) {
+            discrepancyGauge(currency).set(resultDiscrepancies.getOrDefault(currency, BigDecimal.ZERO));
+        }
+
+        if (resultDiscrepancies.isEmpty()) {
+            log.info("Reconciliation scan {} found {} accounts matching the expected totals", result.getEpoch(), result.getAccountCount());
+        } else {
+            failedScans.increment();
+            log.error("Reconciliation scan {} found balances not matching the expected totals: {}", result.getEpoch(), resultDiscrepancies);
+        }
+    }
+
+    private AtomicReference<BigDecimal> discrepancyGauge(Currency currency) {
+        return discrepancies.computeIfAbsent(currency, k -> {
+            AtomicReference<BigDecimal> discrepancy = new AtomicReference<>(BigDecimal.ZERO);
+            Gauge.builder("transfers.reconciliation.discrepancy", discrepancy, d -> d.get().doubleValue())
+                    .description("Sum of the balances minus the expected total, as of the last reconciliation scan")
+                    .tag("currency", currency.getCurrencyCode())
+                    .register(meterRegistry);
+            return discrepancy;
+        });
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+    }
+
+    private static void add(Map<Currency, BigDecimal> totals, Currency currency, BigDecimal amount) {
+        totals.merge(currency, amount, BigDecimal::add);
+    }
+
+    private static final class Stripe {
+
+        private final Lock lock = new ReentrantLock();
+
+        // all guarded by the lock
+        private final Map<Currency, BigDecimal> totals = new HashMap<>();
+        // deltas left out of the active scan and their effects on not yet counted accounts
+        private final Map<Currency, BigDecimal> excluded = new HashMap<>();
+        private final Map<Currency, BigDecimal> corrections = new HashMap<>();
+
+        void add(Currency currency, BigDecimal amount) {
+            ReconciliationService.add(totals, currency, amount);
+        }
+
+        /**
+         * @param uncounted whether the delta was applied to an account that the scan is still going to count
+         */
+        void exclude(Currency currency, BigDecimal amount, boolean uncounted) {
+            ReconciliationService.add(excluded, currency, amount);
+            if (uncounted) {
+                ReconciliationService.add(corrections, currency, amount.negate());
+            }
+        }
+    }
+
+    private final class Scan {
+
+        private final long epoch;
+        private final Instant startedAt = Instant.now();
+        private volatile SegmentProgress progress = new SegmentProgress(0);
+
+        // only accessed by the scanning thread
+        private final Map<Currency, BigDecimal> counted = new HashMap<>();
+        private long accountCount;
+
+        private Scan(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * Has to be called while holding the account lock.
+         */
+        boolean isCounted(String accountId) {
+            SegmentProgress current = progress;
+            int segment = accountsRepository.getSegment(accountId);
+            return segment < current.segment || segment == current.segment && current.counted.contains(accountId);
+        }
+
+        /**
+         * Makes sure the scan won't count the account, if it may not come across it anymore.
+         * Has to be called while holding the account lock.
+         *
+         * @return whether the account is counted
+         */
+        boolean markCounted(String accountId) {
+            SegmentProgress current = progress;
+            int segment = accountsRepository.getSegment(accountId);
+            if (segment == current.segment) {
+                current.counted.add(accountId);
+                return true;
+            }
+            return segment < current.segment;
+        }
+
+        void count(Currency currency, BigDecimal balance) {
+            add(counted, currency, balance);
+            accountCount++;
+        }
+    }
+
+    private static final class SegmentProgress {
+
+        private final int segment;
+        // accounts of the segment that are counted already, or left out
+        private final Set<String> counted = ConcurrentHashMap.newKeySet();
+
+        private SegmentProgress(int segment) {
+            this.segment = segment;
+        }
+    }
+}
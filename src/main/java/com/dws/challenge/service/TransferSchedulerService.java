@@ -0,0 +1,281 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransfer.Priority;
+import com.dws.challenge.domain.ScheduledTransferStatus;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds future-dated transfers in a {@link TimingWheel} and releases them through {@link TransferService}
+ * at a limited rate, so a lot of transfers scheduled for the same moment don't hit the account locks at once.
+ */
+@Service
+@Slf4j
+public class TransferSchedulerService {
+
+    private final TransferService transferService;
+    private final long tickMillis;
+    private final double releaseRate;
+    private final long maxJitterMillis;
+    private final int workerCount;
+    private final long retentionMillis;
+
+    private final Lock wheelLock = new ReentrantLock();
+    private final TimingWheel<PendingTransfer> wheel;
+
+    // a transfer is pending until it is executed, fails or is cancelled - it stays in this map while it is executed,
+    // so cancel can tell an executing transfer from a missing one
+    private final Map<String, PendingTransfer> pendingTransfers = new ConcurrentHashMap<>();
+    private final Map<Priority, Queue<PendingTransfer>> lanes = new EnumMap<>(Priority.class);
+    // executed and failed transfers, in the order they finished
+    private final Map<String, ScheduledTransferStatus> finishedTransfers = new ConcurrentHashMap<>();
+    private final Queue<ScheduledTransferStatus> finishedOrder = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService workers;
+
+    // only accessed from the ticker thread
+    private double releaseAllowance;
+    private long lastReleaseNanos;
+
+    /**
+     * @param retentionMillis how long executed and failed transfers can be looked up
+     */
+    @Autowired
+    public TransferSchedulerService(TransferService transferService,
+                                    @Value("${transfers.scheduler.tick-millis:10}") long tickMillis,
+                                    @Value("${transfers.scheduler.wheel-size:512}") int wheelSize,
+                                    @Value("${transfers.scheduler.levels:4}") int levels,
+                                    @Value("${transfers.scheduler.release-rate:1000}") double releaseRate,
+                                    @Value("${transfers.scheduler.max-jitter-millis:0}") long maxJitterMillis,
+                                    @Value("${transfers.scheduler.workers:4}") int workerCount,
+                                    @Value("${transfers.scheduler.retention-millis:86400000}") long retentionMillis) {
+        if (releaseRate <= 0) {
+            throw new IllegalArgumentException("release rate should be positive");
+        }
+        this.transferService = transferService;
+        this.tickMillis = tickMillis;
+        this.releaseRate = releaseRate;
+        this.maxJitterMillis = maxJitterMillis;
+        this.workerCount = workerCount;
+        this.retentionMillis = retentionMillis;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, levels, System.currentTimeMillis());
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                r -> daemon(r, "transfer-scheduler-worker-" + workerNumber.incrementAndGet()));
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "transfer-scheduler"));
+        lastReleaseNanos = System.nanoTime();
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * @return id of the scheduled transfer
+     */
+    public String schedule(ScheduledTransfer scheduledTransfer) {
+        if (Objects.equals(scheduledTransfer.getTransfer().getAccountFrom(), scheduledTransfer.getTransfer().getAccountTo())) {
+            throw new IllegalArgumentException("accountFrom and accountTo should be different");
+        }
+
+        PendingTransfer pendingTransfer = new PendingTransfer(UUID.randomUUID().toString(), scheduledTransfer);
+        // jitter only ever delays a transfer, so that transfers scheduled for the same second are spread out
+        long jitter = maxJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMillis + 1) : 0;
+        long releaseAt = scheduledTransfer.getExecuteAt().toEpochMilli() + jitter;
+
+        wheelLock.lock();
+        try {
+            pendingTransfers.put(pendingTransfer.id, pendingTransfer);
+            pendingTransfer.timeout = wheel.schedule(pendingTransfer, releaseAt);
+        } finally {
+            wheelLock.unlock();
+        }
+        return pendingTransfer.id;
+    }
+
+    /**
+     * @return status of the transfer or null if there is no such transfer, it was cancelled or finished too long ago
+     */
+    public ScheduledTransferStatus getStatus(String id) {
+        PendingTransfer pendingTransfer = pendingTransfers.get(id);
+        if (pendingTransfer != null) {
+            return new ScheduledTransferStatus(id, pendingTransfer.scheduledTransfer, ScheduledTransferStatus.State.PENDING, null, null);
+        }
+        return finishedTransfers.get(id);
+    }
+
+    /**
+     * @return true if the transfer was still pending and now will not be executed
+     * @throws IllegalStateException if the transfer is being executed right now
+     */
+    public boolean cancel(String id) {
+        PendingTransfer pendingTransfer = pendingTransfers.get(id);
+        if (pendingTransfer == null) {
+            return false;
+        }
+        synchronized (pendingTransfer) {
+            if (pendingTransfer.executing) {
+                throw new IllegalStateException(String.format("scheduled transfer %s is being executed", id));
+            }
+            if (!pendingTransfers.remove(id, pendingTransfer)) {
+                return false;
+            }
+        }
+        wheelLock.lock();
+        try {
+            // the transfer may be already waiting in a lane - it will be skipped there
+            wheel.cancel(pendingTransfer.timeout);
+        } finally {
+            wheelLock.unlock();
+        }
+        return true;
+    }
+
+    public int getPendingCount() {
+        return pendingTransfers.size();
+    }
+
+    private void tick() {
+        try {
+            wheelLock.lock();
+            try {
+                wheel.advance(System.currentTimeMillis(), t -> lanes.get(t.scheduledTransfer.getPriority()).add(t));
+            } finally {
+                wheelLock.unlock();
+            }
+            release();
+            evictFinished();
+        } catch (RuntimeException e) {
+            log.error("Scheduler tick failed", e);
+        }
+    }
+
+    private void release() {
+        long now = System.nanoTime();
+        // allow bursts of at most two ticks worth of transfers
+        double maxAllowance = Math.max(1, 2 * releaseRate * tickMillis / 1000);
+        releaseAllowance = Math.min(maxAllowance, releaseAllowance + (now - lastReleaseNanos) * releaseRate / 1e9);
+        lastReleaseNanos = now;
+
+        while (releaseAllowance >= 1) {
+            PendingTransfer pendingTransfer = pollLanes();
+            if (pendingTransfer == null) {
+                return;
+            }
+            if (!pendingTransfers.containsKey(pendingTransfer.id)) {
+                // cancelled while waiting in the lane
+                continue;
+            }
+            releaseAllowance--;
+            workers.execute(() -> execute(pendingTransfer));
+        }
+    }
+
+    private PendingTransfer pollLanes() {
+        for (Priority priority : Priority.values()) {
+            PendingTransfer pendingTransfer = lanes.get(priority).poll();
+            if (pendingTransfer != null) {
+                return pendingTransfer;
+            }
+        }
+        return null;
+    }
+
+    private void execute(PendingTransfer pendingTransfer) {
+        synchronized (pendingTransfer) {
+            if (!pendingTransfers.containsKey(pendingTransfer.id)) {
+                // cancelled after the release
+                return;
+            }
+            pendingTransfer.executing = true;
+        }
+        try {
+            transferService.makeTransfer(pendingTransfer.scheduledTransfer.getTransfer());
+            log.info("Executed scheduled transfer {}", pendingTransfer.id);
+            finish(pendingTransfer, ScheduledTransferStatus.State.EXECUTED, null);
+        } catch (AccountBusyException e) {
+            // the scheduler is not a client that can retry later - put the transfer back in its lane
+            log.debug("Scheduled transfer {} postponed: {}", pendingTransfer.id, e.getMessage());
+            synchronized (pendingTransfer) {
+                pendingTransfer.executing = false;
+            }
+            lanes.get(pendingTransfer.scheduledTransfer.getPriority()).add(pendingTransfer);
+        } catch (RuntimeException e) {
+            log.warn("Scheduled transfer {} failed: {}", pendingTransfer.id, e.getMessage());
+            finish(pendingTransfer, ScheduledTransferStatus.State.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(PendingTransfer pendingTransfer, ScheduledTransferStatus.State state, String failure) {
+        ScheduledTransferStatus status = new ScheduledTransferStatus(pendingTransfer.id, pendingTransfer.scheduledTransfer,
+                state, Instant.now(), failure);
+        finishedTransfers.put(status.getId(), status);
+        finishedOrder.add(status);
+        // removed after the status is recorded, so the transfer can be looked up all the time
+        pendingTransfers.remove(pendingTransfer.id, pendingTransfer);
+    }
+
+    private void evictFinished() {
+        Instant evictBefore = Instant.now().minusMillis(retentionMillis);
+        ScheduledTransferStatus status;
+        while ((status = finishedOrder.peek()) != null && status.getFinishedAt().isBefore(evictBefore)) {
+            finishedOrder.poll();
+            finishedTransfers.remove(status.getId());
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class PendingTransfer {
+
+        private final String id;
+        private final ScheduledTransfer scheduledTransfer;
+        private TimingWheel.Timeout<PendingTransfer> timeout;
+        // guarded by the pending transfer itself
+        private boolean executing;
+
+        private PendingTransfer(String id, ScheduledTransfer scheduledTransfer) {
+            this.id = id;
+            this.scheduledTransfer = scheduledTransfer;
+        }
+    }
+}
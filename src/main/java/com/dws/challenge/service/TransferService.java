@@ -1,31 +1,69 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceChangeEvent;
 import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.exception.TransferTimeoutException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.util.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class TransferService {
 
     private final AccountsService accountsService;
     private final NotificationService notificationService;
+    private final AccountLockService accountLockService;
+    private final VelocityLimitService velocityLimitService;
+    private final BalanceEventService balanceEventService;
+    private final FxRateService fxRateService;
+    private final LedgerService ledgerService;
+    private final ReconciliationService reconciliationService;
 
-    private final Map<String, Lock> accountLocks = new ConcurrentHashMap<>();
+    private final Counter deadlineTimeouts;
+    private final Timer remainingBudget;
 
     @Autowired
-    public TransferService(AccountsService accountsService, NotificationService notificationService) {
+    public TransferService(AccountsService accountsService, NotificationService notificationService,
+                           AccountLockService accountLockService, VelocityLimitService velocityLimitService,
+                           BalanceEventService balanceEventService, FxRateService fxRateService,
+                           LedgerService ledgerService, ReconciliationService reconciliationService,
+                           MeterRegistry meterRegistry) {
         this.accountsService = accountsService;
         this.notificationService = notificationService;
+        this.accountLockService = accountLockService;
+        this.velocityLimitService = velocityLimitService;
+        this.balanceEventService = balanceEventService;
+        this.fxRateService = fxRateService;
+        this.ledgerService = ledgerService;
+        this.reconciliationService = reconciliationService;
+        this.deadlineTimeouts = Counter.builder("transfers.deadline.timeouts")
+                .description("Transfers rejected because their deadline expired")
+                .register(meterRegistry);
+        this.remainingBudget = Timer.builder("transfers.deadline.remaining")
+                .description("Time left until the deadline when a transfer got its account locks")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public void makeTransfer(Transfer transfer) {
+        makeTransfer(transfer, Deadline.NONE);
+    }
+
+    /**
+     * @throws TransferTimeoutException       if the deadline expires before the transfer could be made
+     * @throws VelocityLimitExceededException if the transfer would exceed accountFrom hourly or daily limit
+     */
+    public void makeTransfer(Transfer transfer, Deadline deadline) {
         String accountFromId = transfer.getAccountFrom();
         String accountToId = transfer.getAccountTo();
 
@@ -40,20 +78,23 @@ public class TransferService {
             throw new IllegalArgumentException("transfer amount should be positive");
         }
 
+        // Retrieve accounts by their ids before locking, so nonexistent ids never get locks.
+        // Accounts are never removed, and their balances are only read under the locks
+        Account accountFrom = accountsService.getAccount(accountFromId);
+        if (accountFrom == null) {
+            throw new NoSuchElementException(String.format("account %s not found", accountFromId));
+        }
+        Account accountTo = accountsService.getAccount(accountToId);
+        if (accountTo == null) {
+            throw new NoSuchElementException(String.format("account %s not found", accountToId));
+        }
+
         //Lock both account ids
-        List<Lock> locks = acquireLocks(accountFromId, accountToId);
+        List<Lock> locks = acquireLocks(deadline, accountFromId, accountToId);
 
+        BalanceChangeEvent accountFromEvent;
+        BalanceChangeEvent accountToEvent;
         try {
-            // Retrieve accounts by their ids
-            Account accountFrom = accountsService.getAccount(accountFromId);
-            if (accountFrom == null) {
-                throw new NoSuchElementException(String.format("account %s not found", accountFromId));
-            }
-            Account accountTo = accountsService.getAccount(accountToId);
-            if (accountTo == null) {
-                throw new NoSuchElementException(String.format("account %s not found", accountFromId));
-            }
-
             BigDecimal accountFromBalance = accountFrom.getBalance();
             BigDecimal accountToBalance = accountTo.getBalance();
 
@@ -62,46 +103,64 @@ public class TransferService {
                 throw new IllegalArgumentException(String.format("accountFrom(%s) balance is less than transfer amount", accountFromId));
             }
 
+            // Transfer amount is in accountFrom currency, convert it if accountTo has another one
+            BigDecimal receivedAmount = fxRateService.convert(transferAmount, accountFrom.getCurrency(), accountTo.getCurrency());
+
+            // Check and record the outgoing amount against accountFrom limits
+            velocityLimitService.checkAndRecord(accountFromId, transferAmount);
+
             // Make the transfer
             accountFrom.setBalance(accountFromBalance.subtract(transferAmount));
-            accountTo.setBalance(accountToBalance.add(transferAmount));
+            accountTo.setBalance(accountToBalance.add(receivedAmount));
+
+            // Post the transfer to the ledger, if it is enabled, and record it for reconciliation
+            ledgerService.recordTransfer(accountFrom, transferAmount, accountTo, receivedAmount);
+            reconciliationService.recordTransfer(accountFrom, transferAmount, accountTo, receivedAmount);
 
             //Notify accounts about the transfer
             notificationService.notifyAboutTransfer(accountFrom, String.format("Transferred %s to account %s. Balance: %s", transferAmount, accountToId, accountFrom.getBalance()));
-            notificationService.notifyAboutTransfer(accountTo, String.format("Received %s from account %s. Balance: %s", transferAmount, accountFromId, accountTo.getBalance()));
+            notificationService.notifyAboutTransfer(accountTo, String.format("Received %s from account %s. Balance: %s", receivedAmount, accountFromId, accountTo.getBalance()));
+
+            // Capture balance changes for subscribers, if there are any
+            accountFromEvent = balanceEventService.createEvent(accountFrom);
+            accountToEvent = balanceEventService.createEvent(accountTo);
         } finally {
             locks.forEach(Lock::unlock);
         }
+
+        // Deliver balance changes without holding the locks
+        balanceEventService.publish(accountFromEvent);
+        balanceEventService.publish(accountToEvent);
     }
 
-    private List<Lock> acquireLocks(String... accountIds) {
-        List<Lock> locks = new ArrayList<>();
-        Lock problemLock = null;
-        // need to acquire locks for all the account ids
-        while (locks.size() != accountIds.length) {
-            for (String accountId : accountIds) {
-                Lock lock = accountLocks.computeIfAbsent(accountId, k -> new ReentrantLock());
-                if (lock == problemLock) {
-                    locks.add(lock);
-                    problemLock = null;
-                } else if (lock.tryLock()) {
-                    locks.add(lock);
-                } else {
-                    // other thread has acquired this lock, so we can face a deadlock -
-                    // unlock all acquired locks and wait until the problem lock is unlocked, then try again
-                    locks.forEach(Lock::unlock);
-                    locks.clear();
-                    if (problemLock != null) {
-                        problemLock.unlock();
-                    }
-                    problemLock = lock;
-                    break;
-                }
-            }
-            if (problemLock != null) {
-                problemLock.lock();
+    /**
+     * Cheap check of the transfer accounts, without locks or any other per-account state.
+     *
+     * @throws NoSuchElementException if one of the accounts doesn't exist
+     */
+    public void checkAccountsExist(Transfer transfer) {
+        for (String accountId : new String[]{transfer.getAccountFrom(), transfer.getAccountTo()}) {
+            if (!accountsService.accountExists(accountId)) {
+                throw new NoSuchElementException(String.format("account %s not found", accountId));
             }
         }
+    }
+
+    private List<Lock> acquireLocks(Deadline deadline, String... accountIds) {
+        if (deadline.isExpired()) {
+            deadlineTimeouts.increment();
+            throw new TransferTimeoutException("transfer deadline has expired");
+        }
+        List<Lock> locks;
+        try {
+            locks = accountLockService.acquireLocks(deadline, accountIds);
+        } catch (TransferTimeoutException e) {
+            deadlineTimeouts.increment();
+            throw e;
+        }
+        if (deadline.isBounded()) {
+            remainingBudget.record(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        }
         return locks;
     }
 }
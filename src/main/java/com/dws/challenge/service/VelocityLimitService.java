@@ -0,0 +1,174 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.VelocityLimit;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.util.SlidingWindowCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Hourly and daily limits on the amount sent from an account. Sent amounts are kept in per-account
+ * {@link SlidingWindowCounter}s, which are only touched while the account lock is held.
+ * Counters of accounts that sent nothing for a day are dropped periodically.
+ */
+@Service
+@Slf4j
+public class VelocityLimitService {
+
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final VelocityLimit defaultLimit;
+    private final Map<String, VelocityLimit> accountLimits = new ConcurrentHashMap<>();
+    private final Map<String, Windows> accountWindows = new ConcurrentHashMap<>();
+
+    private final AccountLockService accountLockService;
+    private final long evictionIntervalMillis;
+    private ScheduledExecutorService evictor;
+
+    /**
+     * @param defaultHourlyLimit     limit for accounts without their own limits, 0 means no limit
+     * @param defaultDailyLimit      limit for accounts without their own limits, 0 means no limit
+     * @param evictionIntervalMillis how often counters of idle accounts are dropped, 0 means never
+     */
+    @Autowired
+    public VelocityLimitService(AccountLockService accountLockService,
+                                @Value("${transfers.velocity.default-hourly-limit:0}") BigDecimal defaultHourlyLimit,
+                                @Value("${transfers.velocity.default-daily-limit:0}") BigDecimal defaultDailyLimit,
+                                @Value("${transfers.velocity.eviction-interval-millis:600000}") long evictionIntervalMillis) {
+        this.accountLockService = accountLockService;
+        this.defaultLimit = new VelocityLimit(positiveOrNull(defaultHourlyLimit), positiveOrNull(defaultDailyLimit));
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (evictionIntervalMillis <= 0) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "velocity-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    public VelocityLimit getLimit(String accountId) {
+        return accountLimits.getOrDefault(accountId, defaultLimit);
+    }
+
+    public void setLimit(String accountId, VelocityLimit limit) {
+        accountLimits.put(accountId, limit);
+    }
+
+    /**
+     * Records the amount sent from the account, unless it would exceed one of the account's limits.
+     * Has to be called while holding the account lock.
+     *
+     * @throws VelocityLimitExceededException if the amount would exceed the hourly or the daily limit
+     */
+    public void checkAndRecord(String accountId, BigDecimal amount) {
+        VelocityLimit limit = getLimit(accountId);
+        if (limit.isUnlimited()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Windows windows = accountWindows.computeIfAbsent(accountId, k -> new Windows(now));
+        checkWindow(accountId, "hourly", limit.getHourlyLimit(), windows.hourly, now, amount);
+        checkWindow(accountId, "daily", limit.getDailyLimit(), windows.daily, now, amount);
+
+        windows.hourly.add(now, amount);
+        windows.daily.add(now, amount);
+    }
+
+    /**
+     * Drops the counters of accounts that sent nothing within the daily window - they behave exactly like new ones.
+     *
+     * @return number of evicted accounts
+     */
+    public int evictIdle() {
+        return evictIdle(System.currentTimeMillis());
+    }
+
+    /**
+     * @see #evictIdle()
+     */
+    public int evictIdle(long now) {
+        int evicted = 0;
+        for (String accountId : accountWindows.keySet()) {
+            List<Lock> locks;
+            try {
+                locks = accountLockService.acquireLocks(accountId);
+            } catch (AccountBusyException e) {
+                // the account is busy, so probably not idle anyway
+                continue;
+            }
+            try {
+                // counters are only touched under the account lock
+                Windows windows = accountWindows.get(accountId);
+                if (windows != null && windows.isEmpty(now) && accountWindows.remove(accountId, windows)) {
+                    evicted++;
+                }
+            } finally {
+                locks.forEach(Lock::unlock);
+            }
+        }
+        log.debug("Evicted {} idle velocity limit counters", evicted);
+        return evicted;
+    }
+
+    public int getTrackedAccountCount() {
+        return accountWindows.size();
+    }
+
+    private static void checkWindow(String accountId, String name, BigDecimal limit,
+                                    SlidingWindowCounter window, long now, BigDecimal amount) {
+        if (limit != null && window.sum(now).add(amount).compareTo(limit) > 0) {
+            throw new VelocityLimitExceededException(String.format("account %s would exceed its %s limit of %s", accountId, name, limit));
+        }
+    }
+
+    private static BigDecimal positiveOrNull(BigDecimal limit) {
+        return limit != null && limit.signum() > 0 ? limit : null;
+    }
+
+    private static final class Windows {
+
+        // one-minute buckets for the hour, 15-minute buckets for the day
+        private final SlidingWindowCounter hourly;
+        private final SlidingWindowCounter daily;
+
+        private Windows(long now) {
+            this.hourly = new SlidingWindowCounter(HOUR_MILLIS, 60, now);
+            this.daily = new SlidingWindowCounter(DAY_MILLIS, 96, now);
+        }
+
+        boolean isEmpty(long now) {
+            return hourly.isEmpty(now) && daily.isEmpty(now);
+        }
+    }
+}
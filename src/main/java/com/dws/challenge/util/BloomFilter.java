@@ -0,0 +1,124 @@
+package com.dws.challenge.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, scalable Bloom filter of strings. {@link #mightContain} never returns false for an added string,
+ * and returns true for other strings with about the configured false positive rate.
+ * <p>
+ * The filter starts with one stage sized for the expected number of strings. When a stage is full, a stage of twice
+ * the capacity and half the false positive rate is added, so the total rate stays below twice the configured one.
+ * Memory only grows with added strings, never with lookups.
+ */
+public class BloomFilter {
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("filter should expect at least one string and have a false positive rate between 0 and 1");
+        }
+        stages.add(new Stage(expectedInsertions, falsePositiveRate));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        Stage stage = stages.get(stages.size() - 1);
+        if (stage.isFull()) {
+            stage = grow(stage);
+        }
+        stage.add(hash);
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return size of the bit arrays of all the stages, in bytes
+     */
+    public long getSizeInBytes() {
+        return stages.stream().mapToLong(stage -> stage.bits.length() * (long) Long.BYTES).sum();
+    }
+
+    private synchronized Stage grow(Stage full) {
+        Stage last = stages.get(stages.size() - 1);
+        if (last != full) {
+            // another thread has grown the filter already
+            return last;
+        }
+        Stage stage = new Stage(full.capacity * 2, full.falsePositiveRate / 2);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the chars, with the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            // optimal number of bits and hash functions for the capacity and the rate
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray(Math.toIntExact((optimalBits + Long.SIZE - 1) / Long.SIZE));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean isFull() {
+            return insertions.get() >= capacity;
+        }
+
+        void add(long hash) {
+            // double hashing: the i-th index is h1 + i * h2, an odd h2 shares no factors of two with the bit count
+            long h1 = hash & 0xffffffffL;
+            long h2 = (hash >>> 32) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << index;
+                bits.accumulateAndGet((int) (index >>> 6), mask, (word, bit) -> word | bit);
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash & 0xffffffffL;
+            long h2 = (hash >>> 32) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dws.challenge.util;
+
+import java.time.Duration;
+
+/**
+ * Point in time (on the {@link System#nanoTime()} clock) by which an operation has to be finished.
+ */
+public final class Deadline {
+
+    public static final Deadline NONE = new Deadline(0, false);
+
+    // nanoTime values can only be compared when they are less than 2^63 nanos apart
+    private static final Duration MAX_TIMEOUT = Duration.ofNanos(Long.MAX_VALUE / 2);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Timeouts longer than about 146 years are cut to that, so they never overflow into a deadline in the past.
+     */
+    public static Deadline after(Duration timeout) {
+        long timeoutNanos = timeout.compareTo(MAX_TIMEOUT) > 0 ? MAX_TIMEOUT.toNanos() : timeout.toNanos();
+        return new Deadline(System.nanoTime() + timeoutNanos, true);
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return nanos left until the deadline, negative if it has already passed, {@link Long#MAX_VALUE} if unbounded
+     */
+    public long remainingNanos() {
+        return bounded ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline(" + Duration.ofNanos(remainingNanos()) + " left)" : "Deadline(none)";
+    }
+}
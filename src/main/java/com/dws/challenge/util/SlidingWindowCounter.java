@@ -0,0 +1,66 @@
+package com.dws.challenge.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Sum of amounts over a sliding time window, kept in a ring buffer of time buckets.
+ * Both {@link #add} and {@link #sum} are O(1) - at most one pass over the buckets when a lot of time has passed.
+ * The window slides by whole buckets, so the sum may include amounts up to one bucket older than the window.
+ * <p>
+ * The class is not thread-safe, callers have to guard it with their own lock.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final BigDecimal[] buckets;
+
+    private long currentBucket;
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount, long nowMillis) {
+        if (bucketCount < 1 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("window should have at least one millisecond per bucket");
+        }
+        this.bucketMillis = windowMillis / bucketCount;
+        this.buckets = new BigDecimal[bucketCount];
+        this.currentBucket = nowMillis / bucketMillis;
+    }
+
+    public BigDecimal sum(long nowMillis) {
+        advance(nowMillis);
+        return total;
+    }
+
+    public void add(long nowMillis, BigDecimal amount) {
+        advance(nowMillis);
+        int index = (int) (currentBucket % buckets.length);
+        buckets[index] = buckets[index] == null ? amount : buckets[index].add(amount);
+        total = total.add(amount);
+    }
+
+    public boolean isEmpty(long nowMillis) {
+        return sum(nowMillis).signum() == 0;
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        long steps = bucket - currentBucket;
+        if (steps <= 0) {
+            return;
+        }
+        if (steps >= buckets.length) {
+            Arrays.fill(buckets, null);
+            total = BigDecimal.ZERO;
+        } else {
+            for (long i = 1; i <= steps; i++) {
+                int index = (int) ((currentBucket + i) % buckets.length);
+                if (buckets[index] != null) {
+                    total = total.subtract(buckets[index]);
+                    buckets[index] = null;
+                }
+            }
+        }
+        currentBucket = bucket;
+    }
+}
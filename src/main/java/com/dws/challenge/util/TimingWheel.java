@@ -0,0 +1,189 @@
+package com.dws.challenge.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel.
+ * <p>
+ * Level 0 has one slot per tick, every next level has one slot per full rotation of the previous level.
+ * Entries are kept in intrusive doubly linked lists, so both {@link #schedule} and {@link #cancel} are O(1).
+ * When a lower level wraps around, the matching slot of the upper level is cascaded down.
+ * <p>
+ * The class is not thread-safe, callers have to guard it with their own lock.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int bits;
+    private final int mask;
+    private final Slot<T>[][] levels;
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis should be positive");
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize should be a power of two");
+        }
+        if (levelCount < 1 || (long) Integer.numberOfTrailingZeros(wheelSize) * levelCount >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("levelCount is out of range");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = new Slot[levelCount][wheelSize];
+        for (Slot<T>[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the item to expire at the given time. Items scheduled in the past expire on the next tick.
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMillis - startMillis, tickMillis), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return true if the timeout was pending and is now removed from the wheel
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and passes every expired item to the consumer.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // nothing to cascade or expire - jump straight to the target
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            cascade();
+            Slot<T> slot = levels[0][(int) (currentTick & mask)];
+            for (Timeout<T> timeout = slot.detachAll(); timeout != null; ) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                size--;
+                expired.accept(timeout.item);
+                timeout = next;
+            }
+        }
+    }
+
+    private void cascade() {
+        // find the highest level whose lower levels have all wrapped around on this tick
+        int topLevel = 0;
+        while (topLevel + 1 < levels.length && (currentTick & ((1L << (bits * (topLevel + 1))) - 1)) == 0) {
+            topLevel++;
+        }
+        for (int level = topLevel; level > 0; level--) {
+            Slot<T> slot = levels[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            for (Timeout<T> timeout = slot.detachAll(); timeout != null; ) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level + 1 < levels.length && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        levels[level][(int) ((timeout.deadlineTick >>> (bits * level)) & mask)].add(timeout);
+    }
+
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineTick;
+
+        private Slot<T> slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public boolean isPending() {
+            return slot != null;
+        }
+    }
+
+    private static final class Slot<T> {
+
+        private Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Empties the slot and returns the detached entries as a singly linked list (via {@code next}).
+         */
+        Timeout<T> detachAll() {
+            Timeout<T> first = head;
+            for (Timeout<T> timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.slot = null;
+                timeout.prev = null;
+            }
+            head = null;
+            return first;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.dws.challenge.util;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm.
+ * <p>
+ * The bucket parameters live here and are shared, the per-bucket {@link State} is a single long -
+ * the time at which the bucket would be full again - updated with CAS. That keeps one bucket per key cheap
+ * enough to have millions of them.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+
+    /**
+     * @param ratePerSecond tokens added to the bucket per second
+     * @param capacity      max number of tokens, i.e. the allowed burst
+     */
+    public TokenBucket(double ratePerSecond, long capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("rate and capacity should be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1e9 / ratePerSecond));
+        this.capacityNanos = Math.multiplyExact(intervalNanos, capacity);
+    }
+
+    /**
+     * @return state of a full bucket
+     */
+    public State newState(long nowNanos) {
+        return new State(nowNanos);
+    }
+
+    public boolean tryAcquire(State state, long nowNanos) {
+        while (true) {
+            long fullAt = state.fullAt;
+            long newFullAt = (fullAt - nowNanos < 0 ? nowNanos : fullAt) + intervalNanos;
+            if (newFullAt - nowNanos > capacityNanos) {
+                return false;
+            }
+            if (State.FULL_AT.compareAndSet(state, fullAt, newFullAt)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts back a token taken by {@link #tryAcquire} that ended up unused.
+     */
+    public void release(State state) {
+        State.FULL_AT.addAndGet(state, -intervalNanos);
+    }
+
+    /**
+     * @return true if the bucket is full, so dropping the state and starting over with a new one changes nothing
+     */
+    public boolean isIdle(State state, long nowNanos) {
+        return state.fullAt - nowNanos <= 0;
+    }
+
+    public static final class State {
+
+        private static final AtomicLongFieldUpdater<State> FULL_AT = AtomicLongFieldUpdater.newUpdater(State.class, "fullAt");
+
+        private volatile long fullAt;
+
+        private State(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+}
@@ -1,32 +1,55 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.VelocityLimit;
+import com.dws.challenge.exception.AccountBusyException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.VelocityLimitService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
 
   private final AccountsService accountsService;
+  private final VelocityLimitService velocityLimitService;
+  private final BalanceEventService balanceEventService;
+  private final LedgerService ledgerService;
+  private final int maxAccountsPerSubscription;
 
   @Autowired
-  public AccountsController(AccountsService accountsService) {
+  public AccountsController(AccountsService accountsService, VelocityLimitService velocityLimitService,
+    BalanceEventService balanceEventService, LedgerService ledgerService,
+    @Value("${transfers.events.max-accounts-per-subscription:100}") int maxAccountsPerSubscription) {
     this.accountsService = accountsService;
+    this.velocityLimitService = velocityLimitService;
+    this.balanceEventService = balanceEventService;
+    this.ledgerService = ledgerService;
+    this.maxAccountsPerSubscription = maxAccountsPerSubscription;
   }
 
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -37,6 +60,8 @@ public class AccountsController {
     this.accountsService.createAccount(account);
     } catch (DuplicateAccountIdException daie) {
       return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (AccountBusyException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
     }
 
     return new ResponseEntity<>(HttpStatus.CREATED);
@@ -48,4 +73,63 @@ public class AccountsController {
     return this.accountsService.getAccount(accountId);
   }
 
+  @GetMapping(path = "/{accountId}/limits")
+  public ResponseEntity<Object> getLimits(@PathVariable String accountId) {
+    log.info("Retrieving limits for id {}", accountId);
+    if (this.accountsService.getAccount(accountId) == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(this.velocityLimitService.getLimit(accountId), HttpStatus.OK);
+  }
+
+  @PutMapping(path = "/{accountId}/limits", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Object> setLimits(@PathVariable String accountId, @RequestBody @Valid VelocityLimit limit) {
+    log.info("Setting limits {} for id {}", limit, accountId);
+    if (this.accountsService.getAccount(accountId) == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    this.velocityLimitService.setLimit(accountId, limit);
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
+  @GetMapping(path = "/{accountId}/postings")
+  public ResponseEntity<Object> getPostings(@PathVariable String accountId) {
+    log.info("Retrieving postings for id {}", accountId);
+    if (!this.ledgerService.isEnabled() || this.accountsService.getAccount(accountId) == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    try {
+      return new ResponseEntity<>(this.ledgerService.getLedger(accountId), HttpStatus.OK);
+    } catch (AccountBusyException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+  }
+
+  @GetMapping(path = "/{accountId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> subscribeToBalance(@PathVariable String accountId) {
+    log.info("Subscribing to balance changes for id {}", accountId);
+    return subscribe(List.of(accountId));
+  }
+
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> subscribeToBalances(@RequestParam List<String> accountIds) {
+    log.info("Subscribing to balance changes for ids {}", accountIds);
+    if (accountIds.isEmpty() || accountIds.size() > maxAccountsPerSubscription) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return subscribe(new LinkedHashSet<>(accountIds));
+  }
+
+  private ResponseEntity<SseEmitter> subscribe(Iterable<String> accountIds) {
+    List<Account> accounts = new ArrayList<>();
+    for (String accountId : accountIds) {
+      Account account = this.accountsService.getAccount(accountId);
+      if (account == null) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      }
+      accounts.add(account);
+    }
+    return new ResponseEntity<>(this.balanceEventService.subscribe(accounts), HttpStatus.OK);
+  }
+
 }
@@ -0,0 +1,79 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.BulkOperation;
+import com.dws.challenge.domain.BulkOperationStatus;
+import com.dws.challenge.service.BulkOperationService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/bulk-operations")
+@Slf4j
+public class BulkOperationController {
+
+    private final BulkOperationService bulkOperationService;
+
+    @Autowired
+    public BulkOperationController(BulkOperationService bulkOperationService) {
+        this.bulkOperationService = bulkOperationService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> startOperation(@RequestBody @Valid BulkOperation operation) {
+        log.info("Starting bulk operation {}", operation);
+
+        try {
+            return new ResponseEntity<>(this.bulkOperationService.start(operation), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping(path = "/{id}")
+    public ResponseEntity<Object> getOperation(@PathVariable String id) {
+        log.info("Retrieving bulk operation {}", id);
+
+        BulkOperationStatus status = this.bulkOperationService.getStatus(id);
+        if (status == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/{id}/cancel")
+    public ResponseEntity<Object> cancelOperation(@PathVariable String id) {
+        log.info("Cancelling bulk operation {}", id);
+
+        BulkOperationStatus status = this.bulkOperationService.cancel(id);
+        if (status == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping(path = "/{id}/resume")
+    public ResponseEntity<Object> resumeOperation(@PathVariable String id) {
+        log.info("Resuming bulk operation {}", id);
+
+        BulkOperationStatus status;
+        try {
+            status = this.bulkOperationService.resume(id);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+        if (status == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+}
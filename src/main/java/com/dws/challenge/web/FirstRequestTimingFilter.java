@@ -0,0 +1,65 @@
+package com.dws.challenge.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the first request the instance serves, which pays for the lazy initialization left after startup
+ * (dispatcher servlet, message converters, JIT of the request path). Together with the startup time that Spring Boot
+ * logs, it tells how soon a new instance is of use.
+ */
+@Component
+@Slf4j
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean pending = new AtomicBoolean(true);
+
+    @Autowired
+    public FirstRequestTimingFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!pending.get()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (pending.compareAndSet(true, false)) {
+                record(request, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long latencyNanos) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        double latencyMillis = latencyNanos / 1e6;
+        log.info("First request {} {} took {} ms, served {} ms after the process started",
+                request.getMethod(), request.getRequestURI(), String.format("%.1f", latencyMillis), uptimeMillis);
+        TimeGauge.builder("application.first-request.latency", () -> latencyMillis, TimeUnit.MILLISECONDS)
+                .description("Time taken to serve the first request")
+                .register(meterRegistry);
+        TimeGauge.builder("application.first-request.time", () -> uptimeMillis, TimeUnit.MILLISECONDS)
+                .description("Time from the process start until the first request was served")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.FxRates;
+import com.dws.challenge.service.FxRateService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/fx/rates")
+@Slf4j
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    @Autowired
+    public FxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping
+    public ResponseEntity<Object> getRates() {
+        FxRates rates = this.fxRateService.getRates();
+        if (rates == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(rates, HttpStatus.OK);
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> updateRates(@RequestBody @Valid FxRates rates) {
+        log.info("Updating FX rates {}", rates);
+
+        try {
+            this.fxRateService.updateRates(rates);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
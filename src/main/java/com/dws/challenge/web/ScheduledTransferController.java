@@ -0,0 +1,70 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferStatus;
+import com.dws.challenge.service.TransferSchedulerService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/transfers/scheduled")
+@Slf4j
+public class ScheduledTransferController {
+
+    private final TransferSchedulerService transferSchedulerService;
+
+    @Autowired
+    public ScheduledTransferController(TransferSchedulerService transferSchedulerService) {
+        this.transferSchedulerService = transferSchedulerService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> scheduleTransfer(@RequestBody @Valid ScheduledTransfer scheduledTransfer) {
+        log.info("Scheduling transfer {}", scheduledTransfer);
+
+        String id;
+        try {
+            id = this.transferSchedulerService.schedule(scheduledTransfer);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(id, HttpStatus.CREATED);
+    }
+
+    @GetMapping(path = "/{id}")
+    public ResponseEntity<Object> getScheduledTransfer(@PathVariable String id) {
+        log.info("Retrieving scheduled transfer {}", id);
+
+        ScheduledTransferStatus status = this.transferSchedulerService.getStatus(id);
+        if (status == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    @DeleteMapping(path = "/{id}")
+    public ResponseEntity<Object> cancelScheduledTransfer(@PathVariable String id) {
+        log.info("Cancelling scheduled transfer {}", id);
+
+        try {
+            if (!this.transferSchedulerService.cancel(id)) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
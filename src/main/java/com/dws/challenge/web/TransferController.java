@@ -1,42 +1,84 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.exception.RateLimitExceededException;
+import com.dws.challenge.exception.TransferTimeoutException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.service.AdmissionControlService;
 import com.dws.challenge.service.TransferService;
+import com.dws.challenge.util.Deadline;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/v1/transfers")
 @Slf4j
 public class TransferController {
-    
+
+    /**
+     * Time in milliseconds the client is willing to wait for the transfer.
+     */
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
     private final TransferService transferService;
+    private final AdmissionControlService admissionControlService;
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
 
+    /**
+     * @param maxTimeoutMillis longer client timeouts are cut to this
+     */
     @Autowired
-    public TransferController(TransferService transferService) {
+    public TransferController(TransferService transferService, AdmissionControlService admissionControlService,
+                              @Value("${transfers.default-timeout-millis:2000}") long defaultTimeoutMillis,
+                              @Value("${transfers.max-timeout-millis:30000}") long maxTimeoutMillis) {
         this.transferService = transferService;
+        this.admissionControlService = admissionControlService;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> makeTransfer(@RequestBody @Valid Transfer transfer) {
+    public ResponseEntity<Object> makeTransfer(@RequestBody @Valid Transfer transfer,
+                                               @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutMillis) {
         log.info("Making transfer {}", transfer);
 
+        if (timeoutMillis != null && timeoutMillis <= 0) {
+            return new ResponseEntity<>(TIMEOUT_HEADER + " should be positive", HttpStatus.BAD_REQUEST);
+        }
+        Deadline deadline = Deadline.after(Duration.ofMillis(Math.min(timeoutMillis != null ? timeoutMillis : defaultTimeoutMillis, maxTimeoutMillis)));
+
         try {
-            this.transferService.makeTransfer(transfer);
+            // nonexistent accounts are rejected before they get rate limit buckets
+            this.transferService.checkAccountsExist(transfer);
+            this.admissionControlService.admit(transfer.getAccountFrom());
+            this.transferService.makeTransfer(transfer, deadline);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (VelocityLimitExceededException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (RateLimitExceededException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        } catch (AccountBusyException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (TransferTimeoutException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.GATEWAY_TIMEOUT);
         }
 
         return new ResponseEntity<>(HttpStatus.CREATED);
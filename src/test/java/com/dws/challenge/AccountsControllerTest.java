@@ -4,13 +4,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
 import java.math.BigDecimal;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transfer;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.TransferService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +24,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 @ExtendWith(SpringExtension.class)
@@ -32,6 +37,12 @@ class AccountsControllerTest {
   @Autowired
   private AccountsService accountsService;
 
+  @Autowired
+  private TransferService transferService;
+
+  @Autowired
+  private BalanceEventService balanceEventService;
+
   @Autowired
   private WebApplicationContext webApplicationContext;
 
@@ -53,6 +64,21 @@ class AccountsControllerTest {
     assertThat(account.getBalance()).isEqualByComparingTo("1000");
   }
 
+  @Test
+  void createAccountWithCurrency() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-123\",\"balance\":1000,\"currency\":\"USD\"}")).andExpect(status().isCreated());
+
+    Account account = accountsService.getAccount("Id-123");
+    assertThat(account.getCurrency().getCurrencyCode()).isEqualTo("USD");
+  }
+
+  @Test
+  void createAccountInvalidCurrency() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-123\",\"balance\":1000,\"currency\":\"XYZW\"}")).andExpect(status().isBadRequest());
+  }
+
   @Test
   void createDuplicateAccount() throws Exception {
     this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
@@ -100,6 +126,62 @@ class AccountsControllerTest {
     this.mockMvc.perform(get("/v1/accounts/" + uniqueAccountId))
       .andExpect(status().isOk())
       .andExpect(
-        content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
+        content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45,\"currency\":\"EUR\"}"));
+  }
+
+  @Test
+  void subscribeToBalance() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account("Id-2", new BigDecimal(1000)));
+
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/Id-1/events"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    awaitContent(result, "\"balance\":1000");
+
+    this.transferService.makeTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(100)));
+    awaitContent(result, "\"balance\":900");
+    assertThat(result.getResponse().getContentAsString()).doesNotContain("Id-2");
+  }
+
+  @Test
+  void subscribeToBalances() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account("Id-2", new BigDecimal(1000)));
+
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/events").param("accountIds", "Id-1", "Id-2"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    this.transferService.makeTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(100)));
+    awaitContent(result, "{\"accountId\":\"Id-1\",\"balance\":900");
+    awaitContent(result, "{\"accountId\":\"Id-2\",\"balance\":1100");
+  }
+
+  @Test
+  void subscribeHeartbeat() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/Id-1/events"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    awaitContent(result, "\"balance\":1000");
+
+    this.balanceEventService.heartbeat();
+    awaitContent(result, ":heartbeat");
+  }
+
+  @Test
+  void subscribeToNonExistentAccount() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/Id-1/events")).andExpect(status().isNotFound());
+    this.mockMvc.perform(get("/v1/accounts/events").param("accountIds", "Id-1")).andExpect(status().isNotFound());
+  }
+
+  private static void awaitContent(MvcResult result, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!result.getResponse().getContentAsString().contains(expected)) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
   }
 }
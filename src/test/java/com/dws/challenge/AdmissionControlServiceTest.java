@@ -0,0 +1,76 @@
+package com.dws.challenge;
+
+import com.dws.challenge.exception.RateLimitExceededException;
+import com.dws.challenge.service.AdmissionControlService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlServiceTest {
+
+    @Test
+    void accountRateLimit() {
+        AdmissionControlService admissionControlService = new AdmissionControlService(0, 1, 1, 3, 60000);
+
+        for (int i = 0; i < 3; i++) {
+            admissionControlService.admit("Id-1");
+        }
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("Id-1"));
+
+        // other accounts have their own bucket
+        assertDoesNotThrow(() -> admissionControlService.admit("Id-2"));
+    }
+
+    @Test
+    void globalRateLimit() {
+        AdmissionControlService admissionControlService = new AdmissionControlService(1, 2, 0, 1, 60000);
+
+        admissionControlService.admit("Id-1");
+        admissionControlService.admit("Id-2");
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("Id-3"));
+    }
+
+    @Test
+    void globalRateLimitFirst() {
+        AdmissionControlService admissionControlService = new AdmissionControlService(1, 3, 1, 1, 60000);
+
+        admissionControlService.admit("Id-1");
+        // rejected by the account limit, the global token is put back
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("Id-1"));
+        admissionControlService.admit("Id-2");
+        admissionControlService.admit("Id-3");
+
+        // rejected by the global limit, no account state is created
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("Id-4"));
+        assertThat(admissionControlService.getTrackedAccountCount()).isEqualTo(3);
+    }
+
+    @Test
+    void refill() throws InterruptedException {
+        AdmissionControlService admissionControlService = new AdmissionControlService(0, 1, 20, 1, 60000);
+
+        admissionControlService.admit("Id-1");
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("Id-1"));
+
+        Thread.sleep(100);
+        assertDoesNotThrow(() -> admissionControlService.admit("Id-1"));
+    }
+
+    @Test
+    void evictIdle() throws InterruptedException {
+        AdmissionControlService admissionControlService = new AdmissionControlService(0, 1, 20, 2, 60000);
+
+        admissionControlService.admit("Id-1");
+        admissionControlService.admit("Id-2");
+        assertThat(admissionControlService.getTrackedAccountCount()).isEqualTo(2);
+
+        // buckets have not refilled yet
+        assertThat(admissionControlService.evictIdle()).isEqualTo(0);
+
+        Thread.sleep(100);
+        assertThat(admissionControlService.evictIdle()).isEqualTo(2);
+        assertThat(admissionControlService.getTrackedAccountCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.dws.challenge;
+
+import com.dws.challenge.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void containsAdded() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("Id-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("Id-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("Id-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("Other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2000);
+    }
+
+    @Test
+    void growPastExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        long initialSize = filter.getSizeInBytes();
+        for (int i = 0; i < 1000; i++) {
+            filter.add("Id-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("Id-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("Other-" + i)) {
+                falsePositives++;
+            }
+        }
+        // stages with halving rates keep the total under twice the configured rate
+        assertThat(falsePositives).isLessThan(2000);
+        assertThat(filter.getSizeInBytes()).isGreaterThan(initialSize);
+    }
+
+    @Test
+    void lookupsDontGrow() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        long size = filter.getSizeInBytes();
+        for (int i = 0; i < 100_000; i++) {
+            filter.mightContain("Other-" + i);
+        }
+        assertThat(filter.getSizeInBytes()).isEqualTo(size);
+    }
+}
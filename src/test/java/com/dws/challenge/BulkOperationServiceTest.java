@@ -0,0 +1,185 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BulkOperation;
+import com.dws.challenge.domain.BulkOperationStatus;
+import com.dws.challenge.domain.BulkOperationStatus.State;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.BulkOperationService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.ReconciliationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkOperationServiceTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+
+    // the operation stops after the first account of this segment until the gate is opened
+    private volatile int gateSegment = -1;
+    private final CountDownLatch atGate = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final AccountLockService accountLockService = new AccountLockService(0);
+    private final AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory() {
+        @Override
+        public Collection<Account> getAccounts(int segment) {
+            Collection<Account> accounts = super.getAccounts(segment);
+            return segment == gateSegment ? gated(accounts) : accounts;
+        }
+    };
+    private final ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 1000, 0, new SimpleMeterRegistry());
+    private final LedgerService ledgerService = new LedgerService(new PostingRepositoryInMemory(), accountLockService, false, 0, 0);
+    private final AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, 0, 0.01);
+    private final BulkOperationService bulkOperationService = new BulkOperationService(accountsRepository, accountLockService,
+            ledgerService, reconciliationService, new BalanceEventService(0, 1, 0, 0), 1);
+
+    @AfterEach
+    void tearDown() {
+        bulkOperationService.stop();
+    }
+
+    @Test
+    void applyInterest() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000.00"), i % 2 == 0 ? EUR : USD));
+        }
+
+        BulkOperationStatus status = bulkOperationService.start(new BulkOperation(BulkOperation.Type.INTEREST, new BigDecimal("0.00125"), null, null));
+        BulkOperationStatus completed = awaitState(status.getId(), State.COMPLETED);
+
+        assertThat(completed.getCompletedSegments()).isEqualTo(accountsRepository.getSegmentCount());
+        assertThat(completed.getProgress()).isEqualTo(1.0);
+        assertThat(completed.getProcessedAccounts()).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(accountsService.getAccount("Id-" + i).getBalance()).isEqualTo(new BigDecimal("1001.25"));
+        }
+        assertThat(reconciliationService.reconcile().isConsistent()).isTrue();
+    }
+
+    @Test
+    void applyFee() throws InterruptedException {
+        accountsService.createAccount(new Account("Id-1", new BigDecimal("1000.00"), EUR));
+        accountsService.createAccount(new Account("Id-2", new BigDecimal("5.00"), EUR));
+        accountsService.createAccount(new Account("Id-3", new BigDecimal("1000.00"), USD));
+
+        BulkOperationStatus status = bulkOperationService.start(new BulkOperation(BulkOperation.Type.FEE, null, new BigDecimal("10.00"), EUR));
+        BulkOperationStatus completed = awaitState(status.getId(), State.COMPLETED);
+
+        assertThat(completed.getProcessedAccounts()).isEqualTo(2);
+        assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualTo(new BigDecimal("990.00"));
+        // fees never take the balance below zero
+        assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(accountsService.getAccount("Id-3").getBalance()).isEqualTo(new BigDecimal("1000.00"));
+        assertThat(reconciliationService.reconcile().isConsistent()).isTrue();
+    }
+
+    @Test
+    void invalidOperation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkOperationService.start(new BulkOperation(BulkOperation.Type.FEE, null, new BigDecimal("10.00"), null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkOperationService.start(new BulkOperation(BulkOperation.Type.INTEREST, null, null, null)));
+    }
+
+    @Test
+    void cancelAndResume() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000.00"), EUR));
+        }
+        // stop in the middle of a segment with a few accounts
+        for (int segment = 0; gateSegment < 0; segment++) {
+            if (accountsRepository.getAccounts(segment).size() > 2) {
+                gateSegment = segment;
+            }
+        }
+
+        BulkOperationStatus status = bulkOperationService.start(new BulkOperation(BulkOperation.Type.INTEREST, new BigDecimal("0.01"), null, null));
+        assertThat(atGate.await(5, TimeUnit.SECONDS)).isTrue();
+        bulkOperationService.cancel(status.getId());
+        gate.countDown();
+
+        BulkOperationStatus interrupted = awaitState(status.getId(), State.INTERRUPTED);
+        assertThat(interrupted.getCompletedSegments()).isLessThan(accountsRepository.getSegmentCount());
+        assertThat(interrupted.getProcessedAccounts()).isGreaterThan(0).isLessThan(200);
+
+        gateSegment = -1;
+        bulkOperationService.resume(status.getId());
+        BulkOperationStatus completed = awaitState(status.getId(), State.COMPLETED);
+        assertThrows(IllegalStateException.class, () -> bulkOperationService.resume(status.getId()));
+
+        // every account got its interest exactly once
+        assertThat(completed.getProcessedAccounts()).isEqualTo(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(accountsService.getAccount("Id-" + i).getBalance()).isEqualTo(new BigDecimal("1010.00"));
+        }
+        assertThat(reconciliationService.reconcile().isConsistent()).isTrue();
+    }
+
+    private BulkOperationStatus awaitState(String id, State state) throws InterruptedException {
+        awaitTrue(() -> bulkOperationService.getStatus(id).getState() == state);
+        return bulkOperationService.getStatus(id);
+    }
+
+    private Collection<Account> gated(Collection<Account> accounts) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                Iterator<Account> iterator = accounts.iterator();
+                return new Iterator<>() {
+                    private int returned;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (returned == 1) {
+                            atGate.countDown();
+                            try {
+                                gate.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Account next() {
+                        returned++;
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return accounts.size();
+            }
+        };
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BulkOperationStatus;
+import com.dws.challenge.domain.Transfer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChallengeRuntimeHintsTest {
+
+	private final RuntimeHints hints = new RuntimeHints();
+
+	@Test
+	void jsonCreatorConstructors() throws NoSuchMethodException {
+		new ChallengeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+		assertThat(RuntimeHintsPredicates.reflection()
+				.onConstructor(Account.class.getConstructor(String.class, BigDecimal.class, Currency.class)))
+				.accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection()
+				.onConstructor(Transfer.class.getDeclaredConstructors()[0]))
+				.accepts(hints);
+	}
+
+	@Test
+	void lombokAccessors() {
+		new ChallengeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(Account.class, "getBalance")).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(Account.class, "setBalance")).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(BulkOperationStatus.class, "getProgress")).accepts(hints);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.FxRates;
+import com.dws.challenge.service.FxRateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FxRateServiceTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void convertSameCurrency() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+        BigDecimal amount = new BigDecimal("10.005");
+
+        assertThat(fxRateService.convert(amount, EUR, EUR)).isSameAs(amount);
+    }
+
+    @Test
+    void convertWithRounding() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.0845"), JPY, new BigDecimal("160.51"))));
+
+        assertThat(fxRateService.convert(new BigDecimal("10.01"), EUR, USD)).isEqualTo(new BigDecimal("10.86"));
+        // 1.0845 * 10 = 10.845 - half-even rounding goes to the even cent
+        assertThat(fxRateService.convert(BigDecimal.TEN, EUR, USD)).isEqualTo(new BigDecimal("10.84"));
+        assertThat(fxRateService.convert(new BigDecimal("10.84"), USD, EUR)).isEqualTo(new BigDecimal("10.00"));
+        assertThat(fxRateService.convert(BigDecimal.TEN, USD, JPY)).isEqualTo(new BigDecimal("1480"));
+    }
+
+    @Test
+    void convertInvalidAmount() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.0845"), JPY, new BigDecimal("1000"))));
+
+        // JPY has no minor unit, EUR has cents
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(new BigDecimal("10.5"), JPY, EUR));
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(new BigDecimal("10.005"), EUR, USD));
+        assertThat(fxRateService.convert(new BigDecimal("10.000"), EUR, USD)).isEqualTo(new BigDecimal("10.84"));
+
+        // 1 JPY is 0.001 EUR
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(BigDecimal.ONE, JPY, EUR));
+        assertThat(fxRateService.convert(BigDecimal.TEN, JPY, EUR)).isEqualTo(new BigDecimal("0.01"));
+    }
+
+    @Test
+    void convertNoRate() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(BigDecimal.TEN, EUR, USD));
+
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.0845"))));
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(BigDecimal.TEN, USD, JPY));
+    }
+
+    @Test
+    void swapRates() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.1"))));
+        assertThat(fxRateService.convert(BigDecimal.TEN, EUR, USD)).isEqualTo(new BigDecimal("11.00"));
+
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.2"))));
+        assertThat(fxRateService.convert(BigDecimal.TEN, EUR, USD)).isEqualTo(new BigDecimal("12.00"));
+    }
+
+    @Test
+    void loadRates() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "classpath:fx-rates.properties", 0);
+        fxRateService.start();
+
+        assertThat(fxRateService.getRates().getBase()).isEqualTo(EUR);
+        assertThat(fxRateService.getRates().getRates()).containsEntry(USD, new BigDecimal("1.0845"));
+        assertThat(fxRateService.convert(BigDecimal.TEN, EUR, JPY)).isEqualTo(new BigDecimal("1605"));
+    }
+
+    @Test
+    void loadMissingRates() {
+        FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "classpath:missing.properties", 0);
+        fxRateService.start();
+
+        assertThat(fxRateService.getRates()).isNull();
+    }
+}
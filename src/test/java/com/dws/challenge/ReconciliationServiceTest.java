@@ -0,0 +1,196 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FxRates;
+import com.dws.challenge.domain.ReconciliationResult;
+import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.FxRateService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.ReconciliationService;
+import com.dws.challenge.service.TransferService;
+import com.dws.challenge.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReconciliationServiceTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountLockService accountLockService = new AccountLockService(0);
+    // callbacks run by the scan when it gets to a segment, to change accounts on both sides of its watermark
+    private final Map<Integer, Runnable> segmentCallbacks = new ConcurrentHashMap<>();
+    private final AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory() {
+        @Override
+        public Collection<Account> getAccounts(int segment) {
+            Runnable callback = segmentCallbacks.remove(segment);
+            if (callback != null) {
+                callback.run();
+            }
+            return super.getAccounts(segment);
+        }
+    };
+    // small chunks with pauses, so transfers run in between
+    private final ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 10, 1, meterRegistry);
+    private final LedgerService ledgerService = new LedgerService(new PostingRepositoryInMemory(), accountLockService, false, 0, 0);
+    private final AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, 0, 0.01);
+    private final FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+    private final TransferService transferService = new TransferService(accountsService, (account, description) -> {
+    }, accountLockService, new VelocityLimitService(accountLockService, BigDecimal.ZERO, BigDecimal.ZERO, 0), new BalanceEventService(0, 1, 0, 0),
+            fxRateService, ledgerService, reconciliationService, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        fxRateService.updateRates(new FxRates(EUR, Map.of(USD, new BigDecimal("1.0845"))));
+    }
+
+    @Test
+    void reconcile() throws InterruptedException {
+        accountsService.createAccount(new Account("Id-1", new BigDecimal("1000.00"), EUR));
+        accountsService.createAccount(new Account("Id-2", new BigDecimal("1000.00"), EUR));
+        accountsService.createAccount(new Account("Id-3", new BigDecimal("1000.00"), USD));
+
+        transferService.makeTransfer(new Transfer("Id-1", "Id-2", new BigDecimal("100.00")));
+        transferService.makeTransfer(new Transfer("Id-1", "Id-3", new BigDecimal("100.00")));
+
+        ReconciliationResult result = reconciliationService.reconcile();
+        assertThat(result.isConsistent()).isTrue();
+        assertThat(result.getAccountCount()).isEqualTo(3);
+        assertThat(result.getActualTotals()).isEqualTo(Map.of(EUR, new BigDecimal("1900.00"), USD, new BigDecimal("1108.45")));
+        assertThat(reconciliationService.getLastResult()).isSameAs(result);
+        assertThat(meterRegistry.get("transfers.reconciliation.scans").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("transfers.reconciliation.failures").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    void reconcileAcrossWatermark() throws InterruptedException {
+        int watermark = accountsRepository.getSegmentCount() / 2;
+        String countedEur = createAccount(segment -> segment < watermark, EUR);
+        String countedUsd = createAccount(segment -> segment < watermark, USD);
+        String uncountedEur = createAccount(segment -> segment > watermark, EUR);
+        String uncountedUsd = createAccount(segment -> segment > watermark, USD);
+
+        segmentCallbacks.put(watermark, () -> {
+            transferService.makeTransfer(new Transfer(countedEur, uncountedEur, new BigDecimal("10.00")));
+            transferService.makeTransfer(new Transfer(uncountedEur, countedUsd, new BigDecimal("20.00")));
+            transferService.makeTransfer(new Transfer(countedUsd, countedEur, new BigDecimal("30.00")));
+            transferService.makeTransfer(new Transfer(uncountedUsd, uncountedEur, new BigDecimal("40.00")));
+            createAccount(segment -> segment < watermark, USD);
+            createAccount(segment -> segment == watermark, USD);
+            createAccount(segment -> segment > watermark, USD);
+        });
+
+        ReconciliationResult result = reconciliationService.reconcile();
+        assertThat(segmentCallbacks).isEmpty();
+        assertThat(result.getDiscrepancies()).isEmpty();
+        // accounts created before the watermark got to their segment are counted
+        assertThat(result.getAccountCount()).isEqualTo(5);
+
+        // the next scan sees everything
+        result = reconciliationService.reconcile();
+        assertThat(result.getDiscrepancies()).isEmpty();
+        assertThat(result.getAccountCount()).isEqualTo(7);
+    }
+
+    @Test
+    void reconcileDuringTransfers() throws Exception {
+        List<String> accountIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String accountId = "Id-" + i;
+            accountsService.createAccount(new Account(accountId, new BigDecimal("1000.00"), i % 4 == 0 ? USD : EUR));
+            accountIds.add(accountId);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int opened = 0;
+                    while (running.get()) {
+                        String accountFrom = accountIds.get(random.nextInt(accountIds.size()));
+                        String accountTo = accountIds.get(random.nextInt(accountIds.size()));
+                        try {
+                            transferService.makeTransfer(new Transfer(accountFrom, accountTo, new BigDecimal(random.nextInt(1, 100))));
+                        } catch (IllegalArgumentException e) {
+                            // same account or not enough money
+                        }
+                        if (random.nextInt(100) == 0) {
+                            accountsService.createAccount(new Account("New-" + thread + "-" + opened++, new BigDecimal("10.00"), USD));
+                        }
+                    }
+                }));
+            }
+
+            try {
+                for (int i = 0; i < 5; i++) {
+                    ReconciliationResult result = reconciliationService.reconcile();
+                    assertThat(result.getDiscrepancies()).isEmpty();
+                }
+            } finally {
+                running.set(false);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // nothing is in flight anymore, so the last scan sees every account
+        ReconciliationResult result = reconciliationService.reconcile();
+        assertThat(result.isConsistent()).isTrue();
+        assertThat(meterRegistry.get("transfers.reconciliation.failures").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    void reconcileDiscrepancy() throws InterruptedException {
+        Account account1 = new Account("Id-1", new BigDecimal("1000.00"), EUR);
+        accountsService.createAccount(account1);
+        accountsService.createAccount(new Account("Id-2", new BigDecimal("1000.00"), EUR));
+
+        // money appears outside of transfers
+        account1.setBalance(new BigDecimal("1005.00"));
+
+        ReconciliationResult result = reconciliationService.reconcile();
+        assertThat(result.isConsistent()).isFalse();
+        assertThat(result.getDiscrepancies()).isEqualTo(Map.of(EUR, new BigDecimal("5.00")));
+        assertThat(meterRegistry.get("transfers.reconciliation.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("transfers.reconciliation.discrepancy").tag("currency", "EUR").gauge().value()).isEqualTo(5.0);
+    }
+
+    private String createAccount(IntPredicate segment, Currency currency) {
+        for (int i = 0; ; i++) {
+            String accountId = "Id-" + i;
+            if (segment.test(accountsRepository.getSegment(accountId)) && accountsService.getAccount(accountId) == null) {
+                accountsService.createAccount(new Account(accountId, new BigDecimal("1000.00"), currency));
+                return accountId;
+            }
+        }
+    }
+}
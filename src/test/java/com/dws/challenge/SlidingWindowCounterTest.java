@@ -0,0 +1,43 @@
+package com.dws.challenge;
+
+import com.dws.challenge.util.SlidingWindowCounter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    // 10 buckets of 10ms
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(100, 10, 0);
+
+    @Test
+    void sumWithinWindow() {
+        counter.add(0, BigDecimal.valueOf(10));
+        counter.add(35, BigDecimal.valueOf(20));
+        counter.add(99, BigDecimal.valueOf(30));
+
+        assertThat(counter.sum(99)).isEqualTo(BigDecimal.valueOf(60));
+    }
+
+    @Test
+    void slideOutOldBuckets() {
+        counter.add(0, BigDecimal.valueOf(10));
+        counter.add(35, BigDecimal.valueOf(20));
+        counter.add(99, BigDecimal.valueOf(30));
+
+        assertThat(counter.sum(100)).isEqualTo(BigDecimal.valueOf(50));
+        assertThat(counter.sum(140)).isEqualTo(BigDecimal.valueOf(30));
+        assertThat(counter.sum(190)).isEqualTo(BigDecimal.ZERO);
+        assertThat(counter.isEmpty(190)).isTrue();
+    }
+
+    @Test
+    void skipWholeWindow() {
+        counter.add(50, BigDecimal.valueOf(10));
+        counter.add(10_000, BigDecimal.valueOf(5));
+
+        assertThat(counter.sum(10_000)).isEqualTo(BigDecimal.valueOf(5));
+    }
+}
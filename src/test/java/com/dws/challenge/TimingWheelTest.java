@@ -0,0 +1,80 @@
+package com.dws.challenge;
+
+import com.dws.challenge.util.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(10, 4, 3, 0);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void expireInOrder() {
+        wheel.schedule("b", 50);
+        wheel.schedule("a", 20);
+        wheel.schedule("c", 500);
+
+        wheel.advance(19, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(20, expired::add);
+        assertThat(expired).containsExactly("a");
+
+        wheel.advance(499, expired::add);
+        assertThat(expired).containsExactly("a", "b");
+
+        wheel.advance(500, expired::add);
+        assertThat(expired).containsExactly("a", "b", "c");
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    @Test
+    void expireBeyondLastLevel() {
+        // 3 levels of 4 slots cover 64 ticks, this one needs to go around the top level several times
+        wheel.schedule("far", 10_000);
+
+        wheel.advance(9_999, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(10_000, expired::add);
+        assertThat(expired).containsExactly("far");
+    }
+
+    @Test
+    void expireEveryTick() {
+        for (int i = 1; i <= 1000; i++) {
+            wheel.schedule(String.valueOf(i), i * 10L);
+        }
+        for (int i = 1; i <= 1000; i++) {
+            wheel.advance(i * 10L, expired::add);
+            assertThat(expired).hasSize(i).last().isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    void scheduleInThePast() {
+        wheel.advance(100, expired::add);
+        wheel.schedule("late", 30);
+
+        wheel.advance(110, expired::add);
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void cancel() {
+        TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 300);
+        wheel.schedule("kept", 300);
+
+        assertThat(wheel.cancel(timeout)).isTrue();
+        assertThat(wheel.cancel(timeout)).isFalse();
+
+        wheel.advance(1000, expired::add);
+        assertThat(expired).containsExactly("kept");
+        assertThat(timeout.isPending()).isFalse();
+    }
+}
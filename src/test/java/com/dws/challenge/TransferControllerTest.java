@@ -1,7 +1,9 @@
 package com.dws.challenge;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountLockService;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.TransferController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,9 +16,16 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -30,6 +39,9 @@ class TransferControllerTest {
     @Autowired
     private AccountsService accountsService;
 
+    @Autowired
+    private AccountLockService accountLockService;
+
     @Autowired
     private WebApplicationContext webApplicationContext;
 
@@ -126,4 +138,76 @@ class TransferControllerTest {
 
         assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
     }
+
+    @Test
+    void makeTransferTimeout() throws Exception {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> holder = executor.submit(() -> {
+                List<Lock> locks = accountLockService.acquireLocks("Id-1");
+                locked.countDown();
+                try {
+                    release.await();
+                } finally {
+                    locks.forEach(Lock::unlock);
+                }
+                return null;
+            });
+            locked.await();
+
+            this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+                    .header(TransferController.TIMEOUT_HEADER, 50)
+                    .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":500}")).andExpect(status().isGatewayTimeout());
+
+            release.countDown();
+            holder.get();
+        }
+
+        this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+                .header(TransferController.TIMEOUT_HEADER, 0)
+                .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":500}")).andExpect(status().isBadRequest());
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+    }
+
+    @Test
+    void makeTransferHugeTimeout() throws Exception {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+                .header(TransferController.TIMEOUT_HEADER, Long.MAX_VALUE)
+                .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":500}")).andExpect(status().isCreated());
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(500));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1500));
+    }
+
+    @Test
+    void makeTransferVelocityLimitExceeded() throws Exception {
+        Account account1 = new Account("Id-limited", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        this.mockMvc.perform(put("/v1/accounts/Id-limited/limits").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"hourlyLimit\":600}")).andExpect(status().isNoContent());
+
+        this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"accountFrom\":\"Id-limited\",\"accountTo\":\"Id-2\",\"amount\":500}")).andExpect(status().isCreated());
+        this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"accountFrom\":\"Id-limited\",\"accountTo\":\"Id-2\",\"amount\":200}")).andExpect(status().isUnprocessableEntity());
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(500));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1500));
+    }
 }
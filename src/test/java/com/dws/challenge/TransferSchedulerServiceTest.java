@@ -0,0 +1,154 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferStatus;
+import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.FxRateService;
+import com.dws.challenge.service.LedgerService;
+import com.dws.challenge.service.ReconciliationService;
+import com.dws.challenge.service.TransferSchedulerService;
+import com.dws.challenge.service.TransferService;
+import com.dws.challenge.service.VelocityLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferSchedulerServiceTest {
+
+    private final AccountLockService accountLockService = new AccountLockService(0);
+    private final LedgerService ledgerService = new LedgerService(new PostingRepositoryInMemory(), accountLockService, false, 0, 0);
+    private final AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    private final ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 1000, 0, new SimpleMeterRegistry());
+    private final AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, 0, 0.01);
+    private final TransferService transferService = new TransferService(accountsService, (account, description) -> {
+    }, accountLockService, new VelocityLimitService(accountLockService, BigDecimal.ZERO, BigDecimal.ZERO, 0), new BalanceEventService(0, 1, 0, 0),
+            new FxRateService(new DefaultResourceLoader(), "", 0), ledgerService, reconciliationService, new SimpleMeterRegistry());
+    private final TransferSchedulerService schedulerService = new TransferSchedulerService(transferService, 5, 16, 4, 100, 0, 2, 60000);
+
+    private Account account1;
+    private Account account2;
+
+    @BeforeEach
+    void setUp() {
+        account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+        schedulerService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerService.stop();
+    }
+
+    @Test
+    void executeScheduledTransfer() throws InterruptedException {
+        ScheduledTransfer scheduledTransfer = new ScheduledTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(100)),
+                Instant.now().plusMillis(200), null);
+
+        String id = schedulerService.schedule(scheduledTransfer);
+
+        assertThat(schedulerService.getStatus(id).getScheduledTransfer()).isEqualTo(scheduledTransfer);
+        assertThat(schedulerService.getStatus(id).getState()).isEqualTo(ScheduledTransferStatus.State.PENDING);
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+
+        awaitTrue(() -> schedulerService.getPendingCount() == 0 && account2.getBalance().intValue() == 1100);
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(900));
+        assertThat(schedulerService.getStatus(id).getState()).isEqualTo(ScheduledTransferStatus.State.EXECUTED);
+    }
+
+    @Test
+    void failScheduledTransfer() throws InterruptedException {
+        String id = schedulerService.schedule(new ScheduledTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(5000)),
+                Instant.now().plusMillis(50), null));
+
+        awaitTrue(() -> schedulerService.getStatus(id).getState() != ScheduledTransferStatus.State.PENDING);
+        ScheduledTransferStatus status = schedulerService.getStatus(id);
+        assertThat(status.getState()).isEqualTo(ScheduledTransferStatus.State.FAILED);
+        assertThat(status.getFailure()).isEqualTo("accountFrom(Id-1) balance is less than transfer amount");
+        assertThat(status.getFinishedAt()).isNotNull();
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+    }
+
+    @Test
+    void cancelScheduledTransfer() throws InterruptedException {
+        String cancelled = schedulerService.schedule(new ScheduledTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(100)),
+                Instant.now().plusMillis(100), ScheduledTransfer.Priority.HIGH));
+        schedulerService.schedule(new ScheduledTransfer(new Transfer("Id-2", "Id-1", BigDecimal.valueOf(50)),
+                Instant.now().plusMillis(100), ScheduledTransfer.Priority.LOW));
+
+        assertThat(schedulerService.cancel(cancelled)).isTrue();
+        assertThat(schedulerService.cancel(cancelled)).isFalse();
+
+        awaitTrue(() -> schedulerService.getPendingCount() == 0 && account1.getBalance().intValue() == 1050);
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(950));
+    }
+
+    @Test
+    void cancelExecutingTransfer() throws InterruptedException {
+        List<Lock> locks = accountLockService.acquireLocks(account1.getAccountId());
+        String id;
+        try {
+            id = schedulerService.schedule(new ScheduledTransfer(new Transfer("Id-1", "Id-2", BigDecimal.valueOf(100)),
+                    Instant.now(), null));
+            // the transfer waits for the account lock
+            awaitTrue(() -> accountLockService.getQueueLength(account1.getAccountId()) > 0);
+
+            assertThrows(IllegalStateException.class, () -> schedulerService.cancel(id));
+            assertThat(schedulerService.getStatus(id).getState()).isEqualTo(ScheduledTransferStatus.State.PENDING);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+
+        awaitTrue(() -> schedulerService.getStatus(id).getState() == ScheduledTransferStatus.State.EXECUTED);
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1100));
+        assertThat(schedulerService.cancel(id)).isFalse();
+    }
+
+    @Test
+    void releaseAtLimitedRate() throws InterruptedException {
+        Instant executeAt = Instant.now().plusMillis(50);
+        for (int i = 0; i < 30; i++) {
+            schedulerService.schedule(new ScheduledTransfer(new Transfer("Id-1", "Id-2", BigDecimal.ONE), executeAt, null));
+        }
+
+        // 100 transfers per second - 30 transfers need about 300ms to be released
+        Thread.sleep(200);
+        assertThat(schedulerService.getPendingCount()).isGreaterThan(0);
+
+        awaitTrue(() -> schedulerService.getPendingCount() == 0 && account2.getBalance().intValue() == 1030);
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(970));
+    }
+
+    @Test
+    void scheduleSameAccount() {
+        ScheduledTransfer scheduledTransfer = new ScheduledTransfer(new Transfer("Id-1", "Id-1", BigDecimal.ONE), Instant.now(), null);
+        assertThrows(IllegalArgumentException.class, () -> schedulerService.schedule(scheduledTransfer));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,23 +1,46 @@
 package com.dws.challenge;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountLedger;
+import com.dws.challenge.domain.FxRates;
+import com.dws.challenge.domain.Posting;
 import com.dws.challenge.domain.Transfer;
+import com.dws.challenge.domain.VelocityLimit;
+import com.dws.challenge.exception.AccountBusyException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.TransferTimeoutException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
 import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.PostingRepository;
+import com.dws.challenge.repository.PostingRepositoryInMemory;
+import com.dws.challenge.service.AccountLockService;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.FxRateService;
+import com.dws.challenge.service.LedgerService;
 import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.ReconciliationService;
 import com.dws.challenge.service.TransferService;
+import com.dws.challenge.service.VelocityLimitService;
+import com.dws.challenge.util.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Currency;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -26,15 +49,26 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @SpringBootTest
 class TransferServiceTest {
 
-    private final AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory());
+    private final AccountLockService accountLockService = new AccountLockService(0);
+    private final PostingRepository postingRepository = new PostingRepositoryInMemory();
+    private final LedgerService ledgerService = new LedgerService(postingRepository, accountLockService, true, 0, 0);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    private final ReconciliationService reconciliationService = new ReconciliationService(accountsRepository, accountLockService, 0, 1000, 0, meterRegistry);
+    private final AccountsService accountsService = new AccountsService(accountsRepository, accountLockService, ledgerService, reconciliationService, 0, 0.01);
     private final ConcurrentHashMap<String, Integer> notificationCounts = new ConcurrentHashMap<>();
     private final NotificationService notificationService = mockNotificationService(notificationCounts);
-    private final TransferService transferService = new TransferService(accountsService, notificationService);
+    private final VelocityLimitService velocityLimitService = new VelocityLimitService(accountLockService, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+    private final BalanceEventService balanceEventService = new BalanceEventService(0, 1, 0, 0);
+    private final FxRateService fxRateService = new FxRateService(new DefaultResourceLoader(), "", 0);
+    private final TransferService transferService = new TransferService(accountsService, notificationService, accountLockService,
+            velocityLimitService, balanceEventService, fxRateService, ledgerService, reconciliationService, meterRegistry);
 
     @BeforeEach
     void cleanUp() {
         // Reset the existing accounts before each test.
         accountsService.getAccountsRepository().clearAccounts();
+        postingRepository.clearPostings();
         notificationCounts.clear();
     }
 
@@ -122,10 +156,146 @@ class TransferServiceTest {
         assertThrows(NoSuchElementException.class, () -> transferService.makeTransfer(transfer2));
 
         assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+        // nonexistent ids leave no locks behind
+        assertThat(accountLockService.getLockCount()).isEqualTo(0);
 
         assertThat(notificationCounts.getOrDefault(account1.getAccountId(), 0)).isEqualTo(0);
     }
 
+    @Test
+    void makeTransferReleasesLocks() {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(500)));
+        Transfer transfer = new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(5000));
+        assertThrows(IllegalArgumentException.class, () -> transferService.makeTransfer(transfer));
+        assertThrows(DuplicateAccountIdException.class, () -> accountsService.createAccount(new Account("Id-1")));
+
+        assertThat(accountLockService.getLockCount()).isEqualTo(0);
+    }
+
+    @Test
+    void makeTransferVelocityLimitExceeded() {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        velocityLimitService.setLimit(account1.getAccountId(), new VelocityLimit(BigDecimal.valueOf(600), BigDecimal.valueOf(800)));
+
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(500)));
+        assertThrows(VelocityLimitExceededException.class,
+                () -> transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(200))));
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(100)));
+
+        // incoming transfers don't count against the limits of account 2
+        transferService.makeTransfer(new Transfer(account2.getAccountId(), account1.getAccountId(), BigDecimal.valueOf(700)));
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1100));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(900));
+
+        assertThat(notificationCounts.get(account1.getAccountId())).isEqualTo(3);
+        assertThat(notificationCounts.get(account2.getAccountId())).isEqualTo(3);
+    }
+
+    @Test
+    void evictIdleVelocityCounters() {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+        velocityLimitService.setLimit(account1.getAccountId(), new VelocityLimit(BigDecimal.valueOf(600), BigDecimal.valueOf(800)));
+
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(500)));
+        assertThat(velocityLimitService.getTrackedAccountCount()).isEqualTo(1);
+
+        // the amount is still within the daily window
+        long now = System.currentTimeMillis();
+        assertThat(velocityLimitService.evictIdle(now + Duration.ofHours(2).toMillis())).isEqualTo(0);
+        assertThat(velocityLimitService.evictIdle(now + Duration.ofDays(2).toMillis())).isEqualTo(1);
+        assertThat(velocityLimitService.getTrackedAccountCount()).isEqualTo(0);
+        assertThat(accountLockService.getLockCount()).isEqualTo(0);
+    }
+
+    @Test
+    void makeCrossCurrencyTransfer() {
+        Currency usd = Currency.getInstance("USD");
+        Currency jpy = Currency.getInstance("JPY");
+        fxRateService.updateRates(new FxRates(Account.DEFAULT_CURRENCY, Map.of(usd, new BigDecimal("1.0845"), jpy, new BigDecimal("160.51"))));
+
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000), usd);
+        accountsService.createAccount(account2);
+
+        Account account3 = new Account("Id-3", new BigDecimal(1000), jpy);
+        accountsService.createAccount(account3);
+
+        // EUR -> USD
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), new BigDecimal("100.00")));
+        assertThat(account1.getBalance()).isEqualByComparingTo("900");
+        assertThat(account2.getBalance()).isEqualByComparingTo("1108.45");
+
+        // USD -> JPY is converted via EUR and rounded to whole yen: 10 / 1.0845 * 160.51 = 1480.036...
+        transferService.makeTransfer(new Transfer(account2.getAccountId(), account3.getAccountId(), BigDecimal.TEN));
+        assertThat(account2.getBalance()).isEqualByComparingTo("1098.45");
+        assertThat(account3.getBalance()).isEqualByComparingTo("2480");
+    }
+
+    @Test
+    void makeCrossCurrencyTransferNoRate() {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000), Currency.getInstance("CHF"));
+        accountsService.createAccount(account2);
+
+        Transfer transfer = new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.TEN);
+        assertThrows(IllegalArgumentException.class, () -> transferService.makeTransfer(transfer));
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1000));
+        assertThat(notificationCounts.getOrDefault(account1.getAccountId(), 0)).isEqualTo(0);
+    }
+
+    @Test
+    void makeTransferPostings() {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(300)));
+        transferService.makeTransfer(new Transfer(account2.getAccountId(), account1.getAccountId(), BigDecimal.valueOf(100)));
+
+        AccountLedger ledger = ledgerService.getLedger(account1.getAccountId());
+        assertThat(ledger.getPostings()).extracting(p -> p.getAmount().intValue()).containsExactly(1000, -300, 100);
+        assertThat(ledgerBalance(ledger)).isEqualByComparingTo(account1.getBalance());
+
+        // both postings of a transfer share its entry
+        AccountLedger ledger2 = ledgerService.getLedger(account2.getAccountId());
+        assertThat(ledger2.getPostings().get(1).getEntryId()).isEqualTo(ledger.getPostings().get(1).getEntryId());
+        assertThat(ledgerBalance(ledger2)).isEqualByComparingTo(account2.getBalance());
+
+        // everything is older than the zero retention - fold it into checkpoints
+        assertThat(ledgerService.compact()).isEqualTo(6);
+
+        ledger = ledgerService.getLedger(account1.getAccountId());
+        assertThat(ledger.getPostings()).isEmpty();
+        assertThat(ledger.getCheckpoint().getPostingCount()).isEqualTo(3);
+        assertThat(ledgerBalance(ledger)).isEqualByComparingTo(account1.getBalance());
+
+        transferService.makeTransfer(new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(50)));
+        assertThat(ledgerBalance(ledgerService.getLedger(account1.getAccountId()))).isEqualByComparingTo("750");
+        assertThat(ledgerBalance(ledgerService.getLedger(account2.getAccountId()))).isEqualByComparingTo("1250");
+    }
+
     @Test
     void makeConcurrentTransfers() throws ExecutionException, InterruptedException {
         Account account1 = new Account("Id-1", new BigDecimal(1000));
@@ -205,6 +375,99 @@ class TransferServiceTest {
         assertThat(notificationCounts.get(account4.getAccountId())).isEqualTo(100);
     }
 
+    @Test
+    void makeTransferAccountBusy() throws Exception {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        Transfer transfer = new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(100));
+
+        // only one thread may wait for an account lock
+        AccountLockService accountLockService = new AccountLockService(1);
+        TransferService transferService = new TransferService(accountsService, notificationService, accountLockService,
+                velocityLimitService, balanceEventService, fxRateService, ledgerService, reconciliationService, meterRegistry);
+
+        try (ExecutorService executor = Executors.newCachedThreadPool()) {
+            // hold the lock of account 1 in another thread, so the first transfer has to wait for it
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> holder = executor.submit(() -> {
+                List<Lock> locks = accountLockService.acquireLocks(account1.getAccountId());
+                locked.countDown();
+                try {
+                    release.await();
+                } finally {
+                    locks.forEach(Lock::unlock);
+                }
+                return null;
+            });
+            locked.await();
+
+            Future<?> waiting = executor.submit(() -> transferService.makeTransfer(transfer));
+            while (accountLockService.getQueueLength(account1.getAccountId()) == 0) {
+                Thread.sleep(1);
+            }
+
+            // the queue of account 1 is full
+            assertThrows(AccountBusyException.class, () -> transferService.makeTransfer(transfer));
+
+            release.countDown();
+            holder.get();
+            waiting.get();
+        }
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(900));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1100));
+    }
+
+    @Test
+    void makeTransferDeadlineExpired() throws Exception {
+        Account account1 = new Account("Id-1", new BigDecimal(1000));
+        accountsService.createAccount(account1);
+
+        Account account2 = new Account("Id-2", new BigDecimal(1000));
+        accountsService.createAccount(account2);
+
+        Transfer transfer = new Transfer(account1.getAccountId(), account2.getAccountId(), BigDecimal.valueOf(100));
+
+        try (ExecutorService executor = Executors.newCachedThreadPool()) {
+            // hold the lock of account 2 in another thread, so the transfer can't get it in time
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> holder = executor.submit(() -> {
+                List<Lock> locks = accountLockService.acquireLocks(account2.getAccountId());
+                locked.countDown();
+                try {
+                    release.await();
+                } finally {
+                    locks.forEach(Lock::unlock);
+                }
+                return null;
+            });
+            locked.await();
+
+            assertThrows(TransferTimeoutException.class,
+                    () -> transferService.makeTransfer(transfer, Deadline.after(Duration.ofMillis(50))));
+            assertThat(meterRegistry.counter("transfers.deadline.timeouts").count()).isEqualTo(1);
+
+            release.countDown();
+            holder.get();
+        }
+
+        // the lock of account 1 must have been released
+        transferService.makeTransfer(transfer, Deadline.after(Duration.ofMillis(50)));
+
+        assertThat(account1.getBalance()).isEqualTo(BigDecimal.valueOf(900));
+        assertThat(account2.getBalance()).isEqualTo(BigDecimal.valueOf(1100));
+        assertThat(meterRegistry.timer("transfers.deadline.remaining").count()).isEqualTo(1);
+    }
+
+    private static BigDecimal ledgerBalance(AccountLedger ledger) {
+        return ledger.getPostings().stream().map(Posting::getAmount).reduce(ledger.getCheckpoint().getBalance(), BigDecimal::add);
+    }
 
     private NotificationService mockNotificationService(Map<String, Integer> notificationCounts) {
         return (account, transferDescription) -> {